@@ -21,23 +21,33 @@ public class BruteCollinearPoints {
      * Finds all line segments containing 4 points.
      */
     public BruteCollinearPoints(Point[] points) {
-        validateArg(points);
+        Point[] sortedPoints = validateArg(points);
         lines = new ArrayList<>();
         numSegments = 0;
-        findLines(points);
+        findLines(sortedPoints);
     }
 
-    private void validateArg(Point[] points) {
+    /**
+     * Validates the points and returns a copy of them sorted in natural
+     * order, where any repeated points are adjacent.
+     */
+    private Point[] validateArg(Point[] points) {
         if (points == null) {
             error();
         }
-        List<Point> uniquePoints = new ArrayList<>();
         for (Point point : points) {
-            if (point == null || uniquePoints.contains(point)) {
+            if (point == null) {
+                error();
+            }
+        }
+        Point[] sortedPoints = points.clone();
+        Arrays.sort(sortedPoints);
+        for (int i = 1; i < sortedPoints.length; i += 1) {
+            if (sortedPoints[i - 1].compareTo(sortedPoints[i]) == 0) {
                 error();
             }
-            uniquePoints.add(point);
         }
+        return sortedPoints;
     }
 
     private void error() {
@@ -45,6 +55,10 @@ public class BruteCollinearPoints {
         throw new IllegalArgumentException(error);
     }
 
+    /**
+     * Finds the line segments among the points, which are sorted in natural
+     * order.
+     */
     private void findLines(Point[] points) {
         int length = points.length;
         for (int i = 0; i < length - 3; i += 1) {
@@ -61,7 +75,7 @@ public class BruteCollinearPoints {
                          */
                         for (int n = k + 1; n < length; n += 1) {
                             Point p4 = points[n];
-                            addLine(p1, p2, p3, p4);
+                            addLine(p1, p2, p4);
                         }
                     }
                 }
@@ -78,20 +92,15 @@ public class BruteCollinearPoints {
     }
 
     /**
-     * Adds a line segment if 4 points are collinear and the maximum and
-     * minimum points are distinct.
+     * Adds a line segment if the fourth point is collinear with the first
+     * three. The points are in natural order, so the first and last are the
+     * minimum and maximum.
      */
-    private void addLine(Point p1, Point p2, Point p3, Point p4) {
+    private void addLine(Point p1, Point p2, Point p4) {
         if (isCollinear(p1, p2, p4)) {
-            Point[] collinearPoints = {p1, p2, p3, p4};
-            Arrays.sort(collinearPoints);
-            Point minPoint = collinearPoints[0];
-            Point maxPoint = collinearPoints[collinearPoints.length - 1];
-            if (minPoint.compareTo(maxPoint) != 0) {
-                LineSegment line = new LineSegment(minPoint, maxPoint);
-                lines.add(line);
-                numSegments += 1;
-            }
+            LineSegment line = new LineSegment(p1, p4);
+            lines.add(line);
+            numSegments += 1;
         }
     }
 
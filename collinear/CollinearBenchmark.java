@@ -0,0 +1,156 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * Benchmarks the collinear engines on random points, which have few
+ * segments, and on points of a grid, which have many, and the slope sorts
+ * at their core. Each benchmark is measured on the current thread with the
+ * Benchmark harness, reporting the mean number of origins searched, or
+ * points sorted, per second with its relative standard deviation across
+ * runs, and the bytes allocated per origin or point.
+ * 
+ * @author Yaohui Wu
+ */
+public class CollinearBenchmark {
+    private static final int[] SIZES = {500, 1000, 2000};
+    private static final int[] SORT_SIZES = {10000, 100000};
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int ITERATIONS = 10;
+    private static final int MAX_COORDINATE = 32768;
+    private static final long SEED = 226;
+
+    /**
+     * Measures the batch, which searches from the given number of origins,
+     * and prints its throughput and allocation rate.
+     */
+    private static void measure(String name, String input, int n,
+        Benchmark.Batch batch) {
+        Benchmark result = Benchmark.measure(WARMUP_ITERATIONS, ITERATIONS, n,
+            batch);
+        StdOut.printf("%-24s %-8s %6d %14.1f %7.1f%% %12.1f\n", name, input,
+            n, result.rate(), 100 * result.deviation(), result.bytes());
+    }
+
+    /**
+     * Returns n distinct random points.
+     */
+    private static Point[] randomPoints(int n) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        Set<Integer> used = new HashSet<>();
+        Point[] points = new Point[n];
+        int count = 0;
+        while (count < n) {
+            int x = random.nextInt(MAX_COORDINATE);
+            int y = random.nextInt(MAX_COORDINATE);
+            if (used.add(x * MAX_COORDINATE + y)) {
+                points[count] = new Point(x, y);
+                count += 1;
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Returns the first n points of a square grid, in random order.
+     */
+    private static Point[] gridPoints(int n) {
+        int side = (int) Math.ceil(Math.sqrt(n));
+        Point[] points = new Point[n];
+        for (int i = 0; i < n; i += 1) {
+            points[i] = new Point(i % side * 7, i / side * 11);
+        }
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = n - 1; i > 0; i -= 1) {
+            int j = random.nextInt(i + 1);
+            Point point = points[i];
+            points[i] = points[j];
+            points[j] = point;
+        }
+        return points;
+    }
+
+    private static void benchmark(String input, Point[] points) {
+        int n = points.length;
+        measure("FastCollinearPoints", input, n,
+            () -> new FastCollinearPoints(points).numberOfSegments());
+        measure("PrimitiveCollinearPoints", input, n,
+            () -> new PrimitiveCollinearPoints(points).numberOfSegments());
+        measure("HashCollinearPoints", input, n,
+            () -> new HashCollinearPoints(points).numberOfSegments());
+    }
+
+    /**
+     * Returns the slope order of Point before it compared the cross products
+     * exactly, which overflows for coordinates beyond about 46,000, as a
+     * baseline for the exact comparators.
+     */
+    private static Comparator<Point> intSlopeOrder(Point p) {
+        int x = p.x();
+        int y = p.y();
+        return (p1, p2) -> {
+            int x1 = p1.x();
+            int y1 = p1.y();
+            int x2 = p2.x();
+            int y2 = p2.y();
+            if (x1 == x && y1 == y) {
+                return x2 == x && y2 == y ? 0 : -1;
+            }
+            if (x2 == x && y2 == y) {
+                return 1;
+            }
+            if (x1 == x || x2 == x) {
+                return Boolean.compare(x1 == x, x2 == x);
+            }
+            if (y1 == y && y2 == y) {
+                return 0;
+            }
+            int denominator1 = x1 - x;
+            int denominator2 = x2 - x;
+            int cross1 = (y1 - y) * denominator2;
+            int cross2 = (y2 - y) * denominator1;
+            if (denominator1 * denominator2 < 0) {
+                return Integer.compare(cross2, cross1);
+            }
+            return Integer.compare(cross1, cross2);
+        };
+    }
+
+    /**
+     * Sorts the points by slope from their first point with the int
+     * comparator and the exact comparator of Point.
+     */
+    private static void benchmarkSlopeSort(Point[] points) {
+        int n = points.length;
+        Point[] copy = new Point[n];
+        measure("sort int slopeOrder", "random", n, () -> {
+            System.arraycopy(points, 0, copy, 0, n);
+            Arrays.sort(copy, intSlopeOrder(points[0]));
+            return copy[n - 1].x();
+        });
+        measure("sort Point slopeOrder", "random", n, () -> {
+            System.arraycopy(points, 0, copy, 0, n);
+            Arrays.sort(copy, points[0].slopeOrder());
+            return copy[n - 1].x();
+        });
+    }
+
+    /**
+     * Runs all benchmarks.
+     */
+    public static void main(String[] args) {
+        StdOut.printf("%-24s %-8s %6s %14s %8s %12s\n", "benchmark", "input",
+            "n", "origins/s", "+/-", "B/origin");
+        for (int n : SIZES) {
+            benchmark("random", randomPoints(n));
+            benchmark("grid", gridPoints(n));
+        }
+        for (int n : SORT_SIZES) {
+            benchmarkSlopeSort(randomPoints(n));
+        }
+    }
+}
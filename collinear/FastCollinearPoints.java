@@ -2,6 +2,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.StdDraw;
@@ -14,30 +16,50 @@ import edu.princeton.cs.algs4.StdOut;
  * @author Yaohui Wu
  */
 public class FastCollinearPoints {
+    // Maximum number of origins searched sequentially by a single task.
+    private static final int ORIGINS_PER_TASK = 8;
     private List<LineSegment> lines;
-    private int numSegments;
 
     /**
      * Finds all line segments containing 4 or more points.
      */
     public FastCollinearPoints(Point[] points) {
-        validateArg(points);
+        this(points, 1);
+    }
+
+    /**
+     * Finds all line segments containing 4 or more points, searching from
+     * the origins in parallel using the given number of threads. The
+     * segments are in the same order for any number of threads.
+     */
+    public FastCollinearPoints(Point[] points, int threads) {
+        Point[] sortedPoints = validateArg(points);
+        validateThreads(threads);
         lines = new ArrayList<>();
-        numSegments = 0;
-        findLines(points);
+        findLines(sortedPoints, threads);
     }
 
-    private void validateArg(Point[] points) {
+    /**
+     * Validates the points and returns a copy of them sorted in natural
+     * order, where any repeated points are adjacent.
+     */
+    private Point[] validateArg(Point[] points) {
         if (points == null) {
             error();
         }
-        List<Point> uniquePoints = new ArrayList<>();
         for (Point point : points) {
-            if (point == null || uniquePoints.contains(point)) {
+            if (point == null) {
                 error();
             }
-            uniquePoints.add(point);
         }
+        Point[] sortedPoints = points.clone();
+        Arrays.sort(sortedPoints);
+        for (int i = 1; i < sortedPoints.length; i += 1) {
+            if (sortedPoints[i - 1].compareTo(sortedPoints[i]) == 0) {
+                error();
+            }
+        }
+        return sortedPoints;
     }
 
     private void error() {
@@ -45,79 +67,142 @@ public class FastCollinearPoints {
         throw new IllegalArgumentException(error);
     }
 
-    private void findLines(Point[] points) {
-        int length = points.length;
+    private void validateThreads(int threads) {
+        if (threads <= 0) {
+            String error = "Invalid number of threads " + threads;
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Finds the line segments among the points, which are sorted in natural
+     * order.
+     */
+    private void findLines(Point[] points, int threads) {
         // No line segment if less than 4 points.
-        if (length < 4) {
+        if (points.length < 4) {
             return;
         }
-        for (int i = 0; i < length; i += 1) {
-            Point p = points[i]; // Origin point.
-            Point[] sortedPoints = points.clone();
-            // Sort the points according to the slopes they makes with P.
-            Arrays.sort(sortedPoints, p.slopeOrder());
-            // Number of points with the same slope including P.
-            int count = 1;
-            // Index where a new group of collinear points starts.
-            int start = 1;
-            // Point with the initial slope.
-            Point prevPoint = sortedPoints[1];
-            /*
-             * Iterate through the sorted array to find consecutive collinear
-             * points.
-             */
-            for (int j = 2; j < length; j += 1) {
-                Point currPoint = sortedPoints[j];
-                Comparator<Point> comparator = p.slopeOrder();
-                if (comparator.compare(prevPoint, currPoint) == 0) {
-                    count += 1; // Extend the group.
-                } else {
-                    /*
-                     * If any 3 (or more) adjacent points have equal slopes
-                     * with respect to P, then they are collinear.
-                     */
-                    if (count >= 3) {
-                        addLine(p, sortedPoints, start, j - 1);
-                    }
-                    // Reset count for the new slope group.
-                    count = 1;
-                    // Update the start index for the new group.
-                    start = j;
-                }
-                // Update previous slope for the next iteration.
-                prevPoint = currPoint;
+        if (threads == 1) {
+            // Search on the calling thread, reusing one scratch array.
+            Point[] sortedPoints = new Point[points.length];
+            for (Point p : points) {
+                findLines(points, p, sortedPoints, lines);
             }
-            // Handle the last group.
-            if (count >= 3) {
-                addLine(p, sortedPoints, start, length - 1);
-            }    
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            lines = pool.invoke(new SearchTask(points, 0, points.length));
+        } finally {
+            pool.shutdown();
         }
     }
 
     /**
-     * Adds a line segment from the given collinear points.
+     * Finds the line segments whose smallest point is one of the origins in
+     * the range [lo, hi), splitting the range in half until it is small
+     * enough to search sequentially. The segments of the left half come
+     * before those of the right half, as in a sequential search.
      */
-    private void addLine(Point p, Point[] sortedPoints, int start, int end) {
-        Point minPoint = p;
-        Point maxPoint = p;
-        // Find the minimum and maximum points in the collinear group.
-        for (int i = start; i <= end; i += 1) {
-            Point q = sortedPoints[i];
-            if (q.compareTo(minPoint) < 0) {
-                minPoint = q;
+    private static class SearchTask extends RecursiveTask<List<LineSegment>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Point[] points;
+        private final int lo;
+        private final int hi;
+
+        public SearchTask(Point[] points, int lo, int hi) {
+            this.points = points;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected List<LineSegment> compute() {
+            if (hi - lo <= ORIGINS_PER_TASK) {
+                List<LineSegment> lines = new ArrayList<>();
+                // Scratch array for the slope sort, shared by the origins.
+                Point[] sortedPoints = new Point[points.length];
+                for (int i = lo; i < hi; i += 1) {
+                    findLines(points, points[i], sortedPoints, lines);
+                }
+                return lines;
             }
-            if (q.compareTo(maxPoint) > 0) {
-                maxPoint = q;
+            int mid = lo + (hi - lo) / 2;
+            SearchTask left = new SearchTask(points, lo, mid);
+            SearchTask right = new SearchTask(points, mid, hi);
+            right.fork();
+            List<LineSegment> lines = left.compute();
+            lines.addAll(right.join());
+            return lines;
+        }
+    }
+
+    /**
+     * Adds the line segments whose smallest point is P to the list, using
+     * the scratch array to sort the points by slope.
+     */
+    private static void findLines(Point[] points, Point p,
+        Point[] sortedPoints, List<LineSegment> lines) {
+        int length = points.length;
+        System.arraycopy(points, 0, sortedPoints, 0, length);
+        /*
+         * Sort the points according to the slopes they makes with P. The
+         * sort is stable, so the points with the same slope stay in
+         * natural order.
+         */
+        Comparator<Point> comparator = p.slopeOrder();
+        Arrays.sort(sortedPoints, comparator);
+        // Number of points with the same slope including P.
+        int count = 1;
+        // Index where a new group of collinear points starts.
+        int start = 1;
+        // Point with the initial slope.
+        Point prevPoint = sortedPoints[1];
+        /*
+         * Iterate through the sorted array to find consecutive collinear
+         * points.
+         */
+        for (int j = 2; j < length; j += 1) {
+            Point currPoint = sortedPoints[j];
+            if (comparator.compare(prevPoint, currPoint) == 0) {
+                count += 1; // Extend the group.
+            } else {
+                /*
+                 * If any 3 (or more) adjacent points have equal slopes
+                 * with respect to P, then they are collinear.
+                 */
+                if (count >= 3) {
+                    addLine(p, sortedPoints, start, j - 1, lines);
+                }
+                // Reset count for the new slope group.
+                count = 1;
+                // Update the start index for the new group.
+                start = j;
             }
+            // Update previous slope for the next iteration.
+            prevPoint = currPoint;
+        }
+        // Handle the last group.
+        if (count >= 3) {
+            addLine(p, sortedPoints, start, length - 1, lines);
         }
+    }
+
+    /**
+     * Adds a line segment from the given collinear points, which are in
+     * natural order, so the first and last are the minimum and maximum.
+     */
+    private static void addLine(Point p, Point[] sortedPoints, int start,
+        int end, List<LineSegment> lines) {
         /*
          * Ensure that each segment is added only once (by using the smallest
          * point).
          */
-        if (p == minPoint) {
-            LineSegment line = new LineSegment(minPoint, maxPoint);
+        if (p.compareTo(sortedPoints[start]) < 0) {
+            LineSegment line = new LineSegment(p, sortedPoints[end]);
             lines.add(line);
-            numSegments += 1;
         }
     }
 
@@ -125,7 +210,7 @@ public class FastCollinearPoints {
      * Returns the number of line segments.
      */
     public int numberOfSegments() {
-        return numSegments;
+        return lines.size();
     }
 
     /**
@@ -155,8 +240,14 @@ public class FastCollinearPoints {
         }
         StdDraw.show();
     
-        // print and draw the line segments
-        FastCollinearPoints collinear = new FastCollinearPoints(points);
+        // print and draw the line segments, searching with the optional
+        // number of threads
+        int threads = 1;
+        if (args.length >= 2) {
+            threads = Integer.parseInt(args[1]);
+        }
+        FastCollinearPoints collinear =
+            new FastCollinearPoints(points, threads);
         for (LineSegment segment : collinear.segments()) {
             StdOut.println(segment);
             segment.draw();
@@ -0,0 +1,138 @@
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * A hashing-based algorithm to find all (maximal) line segments that connect
+ * a subset of 4 or more of the points in expected O(n^2) time. From each
+ * origin, the other points are bucketed by their SlopeKey in an
+ * open-addressing hash table that is reused for every origin, so the search
+ * allocates nothing per origin besides the segments it finds. The segments
+ * are the same, in the same order, as those of FastCollinearPoints.
+ * 
+ * @author Yaohui Wu
+ */
+public class HashCollinearPoints extends KeyedCollinearPoints {
+    private SlopeTable table;
+
+    /**
+     * Finds all line segments containing 4 or more points.
+     */
+    public HashCollinearPoints(Point[] points) {
+        super(points);
+        table = new SlopeTable(Math.max(this.points.length - 1, 0));
+        search();
+    }
+
+    /**
+     * Buckets the other points by their slope from the origin, visiting them
+     * in natural order, so the first point of each bucket is its smallest
+     * and the last is its largest.
+     */
+    protected int findGroups(int origin, long[] groupKeys, int[] groupEnds) {
+        table.clear();
+        for (int j = 0; j < points.length; j += 1) {
+            if (j == origin) {
+                continue;
+            }
+            long key = slopeKey(origin, j);
+            // Leave out the points that share their slope with no other.
+            if (key != SlopeKey.NONE) {
+                table.add(key, j);
+            }
+        }
+        return table.groups(origin, groupKeys, groupEnds);
+    }
+
+    /**
+     * An open-addressing hash table with linear probing from slope keys to
+     * buckets of point indices, holding for each bucket its size and its
+     * first and last index. A slot is in use only if its stamp equals the
+     * current stamp, so the table is cleared in constant time.
+     */
+    private static class SlopeTable {
+        private final int mask;
+        private final long[] keys;
+        private final int[] stamps;
+        private final int[] sizes;
+        private final int[] firsts;
+        private final int[] lasts;
+        private final int[] used; // Slots in use, in order of first use.
+        private int numUsed;
+        private int stamp;
+
+        /**
+         * Constructs a table for at most n keys, at most half full.
+         */
+        public SlopeTable(int n) {
+            int capacity = Integer.highestOneBit(Math.max(2 * n - 1, 1)) << 1;
+            mask = capacity - 1;
+            keys = new long[capacity];
+            stamps = new int[capacity];
+            sizes = new int[capacity];
+            firsts = new int[capacity];
+            lasts = new int[capacity];
+            used = new int[n];
+            numUsed = 0;
+            stamp = 0;
+        }
+
+        /**
+         * Removes all buckets.
+         */
+        public void clear() {
+            stamp += 1;
+            numUsed = 0;
+        }
+
+        /**
+         * Adds the index to the bucket of the key.
+         */
+        public void add(long key, int index) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            int slot = (int) (hash ^ (hash >>> 32)) & mask;
+            while (stamps[slot] == stamp) {
+                if (keys[slot] == key) {
+                    sizes[slot] += 1;
+                    lasts[slot] = index;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            stamps[slot] = stamp;
+            keys[slot] = key;
+            sizes[slot] = 1;
+            firsts[slot] = index;
+            lasts[slot] = index;
+            used[numUsed] = slot;
+            numUsed += 1;
+        }
+
+        /**
+         * Stores the key and the last index of every bucket of 3 or more
+         * indices whose first index is greater than the origin, and returns
+         * the number of such buckets.
+         */
+        public int groups(int origin, long[] groupKeys, int[] groupEnds) {
+            int numGroups = 0;
+            for (int i = 0; i < numUsed; i += 1) {
+                int slot = used[i];
+                if (sizes[slot] >= 3 && firsts[slot] > origin) {
+                    groupKeys[numGroups] = keys[slot];
+                    groupEnds[numGroups] = lasts[slot];
+                    numGroups += 1;
+                }
+            }
+            return numGroups;
+        }
+    }
+
+    /**
+     * Reads the points from a file and prints the line segments.
+     */
+    public static void main(String[] args) {
+        Point[] points = readPoints(args[0]);
+        HashCollinearPoints collinear = new HashCollinearPoints(points);
+        for (LineSegment segment : collinear.segments()) {
+            StdOut.println(segment);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.princeton.cs.algs4.In;
+
+/**
+ * Base of the collinear engines that group the points by SlopeKey. It
+ * validates the points, searches from each origin in natural order and adds
+ * the segments from each origin in the order of their slopes, so that the
+ * segments are the same, in the same order, as those of FastCollinearPoints.
+ * Subclasses only group the other points by their slope from an origin, and
+ * call search() at the end of their constructor.
+ * 
+ * @author Yaohui Wu
+ */
+abstract class KeyedCollinearPoints {
+    private List<LineSegment> lines;
+    private int numSegments;
+    protected final Point[] points; // Points in natural order.
+    protected final int[] xs; // x-coordinate of each point.
+    protected final int[] ys; // y-coordinate of each point.
+
+    /**
+     * Validates the points and stores them in natural order.
+     */
+    protected KeyedCollinearPoints(Point[] points) {
+        this.points = validateArg(points);
+        lines = new ArrayList<>();
+        numSegments = 0;
+        int length = this.points.length;
+        xs = new int[length];
+        ys = new int[length];
+        for (int i = 0; i < length; i += 1) {
+            xs[i] = this.points[i].x();
+            ys[i] = this.points[i].y();
+        }
+    }
+
+    /**
+     * Validates the points and returns a copy of them sorted in natural
+     * order, where any repeated points are adjacent.
+     */
+    private Point[] validateArg(Point[] points) {
+        if (points == null) {
+            error();
+        }
+        for (Point point : points) {
+            if (point == null) {
+                error();
+            }
+        }
+        Point[] sortedPoints = points.clone();
+        Arrays.sort(sortedPoints);
+        for (int i = 1; i < sortedPoints.length; i += 1) {
+            if (sortedPoints[i - 1].compareTo(sortedPoints[i]) == 0) {
+                error();
+            }
+        }
+        return sortedPoints;
+    }
+
+    private void error() {
+        String error = "Invalid argument";
+        throw new IllegalArgumentException(error);
+    }
+
+    /**
+     * Returns the key of the slope from the origin to point j, or
+     * SlopeKey.NONE if no other point can have the same slope.
+     */
+    protected final long slopeKey(int origin, int j) {
+        return SlopeKey.of((long) xs[j] - xs[origin],
+            (long) ys[j] - ys[origin]);
+    }
+
+    /**
+     * Groups the other points by their slope from the origin, and stores the
+     * key and the index of the largest point of every group of 3 or more
+     * points of which the origin is the smallest point, in any order.
+     * Returns the number of such groups.
+     */
+    protected abstract int findGroups(int origin, long[] groupKeys,
+        int[] groupEnds);
+
+    /**
+     * Finds the line segments from each origin in natural order.
+     */
+    protected final void search() {
+        int length = points.length;
+        // No line segment if less than 4 points.
+        if (length < 4) {
+            return;
+        }
+        long[] groupKeys = new long[length];
+        int[] groupEnds = new int[length];
+        for (int i = 0; i < length; i += 1) {
+            int numGroups = findGroups(i, groupKeys, groupEnds);
+            addLines(i, groupKeys, groupEnds, numGroups);
+        }
+    }
+
+    /**
+     * Adds the segments from the origin to the end of each group, in the
+     * order of their slopes as in FastCollinearPoints.
+     */
+    private void addLines(int origin, long[] groupKeys, int[] groupEnds,
+        int numGroups) {
+        // Insertion sort, since an origin starts few segments.
+        for (int i = 1; i < numGroups; i += 1) {
+            long key = groupKeys[i];
+            int end = groupEnds[i];
+            int j = i;
+            while (j > 0 && SlopeKey.compare(groupKeys[j - 1], key) > 0) {
+                groupKeys[j] = groupKeys[j - 1];
+                groupEnds[j] = groupEnds[j - 1];
+                j -= 1;
+            }
+            groupKeys[j] = key;
+            groupEnds[j] = end;
+        }
+        for (int i = 0; i < numGroups; i += 1) {
+            LineSegment line =
+                new LineSegment(points[origin], points[groupEnds[i]]);
+            lines.add(line);
+            numSegments += 1;
+        }
+    }
+
+    /**
+     * Returns the number of line segments.
+     */
+    public int numberOfSegments() {
+        return numSegments;
+    }
+
+    /**
+     * Returns the line segments.
+     */
+    public LineSegment[] segments() {
+        return lines.toArray(new LineSegment[0]);
+    }
+
+    /**
+     * Reads the points from a file of a count followed by coordinates.
+     */
+    static Point[] readPoints(String filename) {
+        In in = new In(filename);
+        int n = in.readInt();
+        Point[] points = new Point[n];
+        for (int i = 0; i < n; i += 1) {
+            int x = in.readInt();
+            int y = in.readInt();
+            points[i] = new Point(x, y);
+        }
+        return points;
+    }
+}
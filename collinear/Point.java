@@ -28,6 +28,26 @@ public class Point implements Comparable<Point> {
         this.y = y;
     }
 
+    /**
+     * Returns the x-coordinate of this point, for the primitive collinear
+     * engines in this directory.
+     *
+     * @return the <em>x</em>-coordinate of the point
+     */
+    int x() {
+        return x;
+    }
+
+    /**
+     * Returns the y-coordinate of this point, for the primitive collinear
+     * engines in this directory.
+     *
+     * @return the <em>y</em>-coordinate of the point
+     */
+    int y() {
+        return y;
+    }
+
     /**
      * Draws this point to standard draw.
      */
@@ -59,8 +79,8 @@ public class Point implements Comparable<Point> {
      * @return the slope between this point and the specified point
      */
     public double slopeTo(Point that) {
-        int dx = that.x - x; // Change in x.
-        int dy = that.y - y; // Change in y.
+        long dx = (long) that.x - x; // Change in x.
+        long dy = (long) that.y - y; // Change in y.
         if (dx == 0 && dy == 0) {
             // Same point.
             return Double.NEGATIVE_INFINITY;
@@ -88,15 +108,18 @@ public class Point implements Comparable<Point> {
      *         argument point
      */
     public int compareTo(Point that) {
+        // Compare the coordinates directly, as their difference may overflow.
         if (y == that.y) {
-            return Integer.compare(x - that.x, 0);
+            return Integer.compare(x, that.x);
         }
-        return Integer.compare(y - that.y, 0);
+        return Integer.compare(y, that.y);
     }
 
     /**
      * Compares two points by the slope they make with this point.
-     * The slope is defined as in the slopeTo() method.
+     * The slope is defined as in the slopeTo() method. The comparison is
+     * exact for all int coordinates: the differences are taken in long and
+     * the cross products are compared in 128 bits, so no input overflows.
      *
      * @return the Comparator that defines this ordering on points
      */
@@ -137,22 +160,41 @@ public class Point implements Comparable<Point> {
             }
             /*
              * Compare slopes using cross product to avoid floating point
-             * arithmetic.
+             * arithmetic. The differences of int coordinates need 33 bits
+             * and their products 66 bits, so compare the products exactly.
              */
-            int denominator1 = x1 - x;
-            int denominator2 = x2 - x;
-            // Cross multiple the two slopes.
-            int cross1 = (y1 - y) * denominator2;
-            int cross2 = (y2 - y) * denominator1;
-            boolean reverse = denominator1 * denominator2 < 0;
-            if (reverse) {
-                // Reverse the inequality when the denominator signs differ.
-                return Integer.compare(cross2, cross1);
+            long dx1 = (long) x1 - x;
+            long dy1 = (long) y1 - y;
+            long dx2 = (long) x2 - x;
+            long dy2 = (long) y2 - y;
+            // Point both directions right, which keeps their slopes.
+            if (dx1 < 0) {
+                dx1 = -dx1;
+                dy1 = -dy1;
             }
-            return Integer.compare(cross1, cross2);
+            if (dx2 < 0) {
+                dx2 = -dx2;
+                dy2 = -dy2;
+            }
+            return compareProducts(dy1, dx2, dy2, dx1);
         };
     }
 
+    /**
+     * Compares the products a * b and c * d exactly, using the high and low
+     * 64 bits of each 128-bit product.
+     *
+     * @return a negative integer, zero, or a positive integer as a * b is
+     *         less than, equal to, or greater than c * d
+     */
+    private static int compareProducts(long a, long b, long c, long d) {
+        long high1 = Math.multiplyHigh(a, b);
+        long high2 = Math.multiplyHigh(c, d);
+        if (high1 != high2) {
+            return Long.compare(high1, high2);
+        }
+        return Long.compareUnsigned(a * b, c * d);
+    }
 
     /**
      * Returns a string representation of this point.
@@ -0,0 +1,129 @@
+import java.util.Arrays;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * A sorting-based algorithm to find all (maximal) line segments that connect
+ * a subset of 4 or more of the points, working on primitive arrays. The
+ * coordinates are stored in int arrays, the slope from each origin to every
+ * other point is computed once as a canonical SlopeKey, and the keys are
+ * grouped with an LSD radix sort instead of sorting Point objects with a
+ * comparator. The segments are the same, in the same order, as those of
+ * FastCollinearPoints.
+ * 
+ * @author Yaohui Wu
+ */
+public class PrimitiveCollinearPoints extends KeyedCollinearPoints {
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+    /*
+     * Slope keys and point indices from the current origin, and the buffers
+     * and counts of the radix sort.
+     */
+    private long[] keys;
+    private int[] indices;
+    private long[] keyBuffer;
+    private int[] indexBuffer;
+    private int[] counts;
+
+    /**
+     * Finds all line segments containing 4 or more points.
+     */
+    public PrimitiveCollinearPoints(Point[] points) {
+        super(points);
+        int n = Math.max(this.points.length - 1, 0);
+        keys = new long[n];
+        indices = new int[n];
+        keyBuffer = new long[n];
+        indexBuffer = new int[n];
+        counts = new int[RADIX];
+        search();
+    }
+
+    /**
+     * Groups the other points by their slope from the origin, and stores the
+     * key and the index of the largest point of every group of 3 or more
+     * points of which the origin is the smallest point. Returns the number
+     * of such groups.
+     */
+    protected int findGroups(int origin, long[] groupKeys, int[] groupEnds) {
+        int n = 0;
+        for (int j = 0; j < points.length; j += 1) {
+            if (j == origin) {
+                continue;
+            }
+            long key = slopeKey(origin, j);
+            // Leave out the points that share their slope with no other.
+            if (key != SlopeKey.NONE) {
+                keys[n] = key;
+                indices[n] = j;
+                n += 1;
+            }
+        }
+        /*
+         * The radix sort is stable and the indices start in natural order,
+         * so the points of each group stay in natural order.
+         */
+        radixSort(n);
+        int numGroups = 0;
+        int start = 0;
+        for (int j = 1; j <= n; j += 1) {
+            if (j == n || keys[j] != keys[start]) {
+                if (j - start >= 3 && indices[start] > origin) {
+                    groupKeys[numGroups] = keys[start];
+                    groupEnds[numGroups] = indices[j - 1];
+                    numGroups += 1;
+                }
+                start = j;
+            }
+        }
+        return numGroups;
+    }
+
+    /**
+     * Sorts the first n keys, and their indices along with them, with an LSD
+     * radix sort that skips the bytes on which all keys agree.
+     */
+    private void radixSort(int n) {
+        for (int shift = 0; shift < Long.SIZE; shift += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < n; i += 1) {
+                counts[(int) (keys[i] >>> shift) & (RADIX - 1)] += 1;
+            }
+            if (counts[(int) (keys[0] >>> shift) & (RADIX - 1)] == n) {
+                continue; // All keys have the same byte.
+            }
+            // Turn the counts into the starting position of each byte.
+            int total = 0;
+            for (int b = 0; b < RADIX; b += 1) {
+                int count = counts[b];
+                counts[b] = total;
+                total += count;
+            }
+            for (int i = 0; i < n; i += 1) {
+                int b = (int) (keys[i] >>> shift) & (RADIX - 1);
+                keyBuffer[counts[b]] = keys[i];
+                indexBuffer[counts[b]] = indices[i];
+                counts[b] += 1;
+            }
+            long[] keySwap = keys;
+            keys = keyBuffer;
+            keyBuffer = keySwap;
+            int[] indexSwap = indices;
+            indices = indexBuffer;
+            indexBuffer = indexSwap;
+        }
+    }
+
+    /**
+     * Reads the points from a file and prints the line segments.
+     */
+    public static void main(String[] args) {
+        Point[] points = readPoints(args[0]);
+        PrimitiveCollinearPoints collinear =
+            new PrimitiveCollinearPoints(points);
+        for (LineSegment segment : collinear.segments()) {
+            StdOut.println(segment);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Canonical slope keys for the primitive collinear engines. The key of the
+ * direction (dx, dy) is the direction divided by the gcd of its components
+ * and turned to point right (or up, if vertical), packed into a long with dy
+ * in the high 32 bits and dx in the low 32 bits. Two directions from the
+ * same origin have equal keys if and only if they have equal slopes.
+ * <p>
+ * The differences of int coordinates fit in a long, and the reduced
+ * components fit in an int unless one of them is at least 2^31 in absolute
+ * value. No two other points then have that slope from the origin, since
+ * the lattice points on the line are the multiples of the reduced direction
+ * and two steps would span at least 2^32. Such a slope gets the key NONE,
+ * which is never part of a group.
+ * 
+ * @author Yaohui Wu
+ */
+final class SlopeKey {
+    /*
+     * Key of a slope that no other point shares with the origin. The change
+     * in x of any other key is not negative, so it is never equal to one.
+     */
+    static final long NONE = -1L;
+
+    private SlopeKey() {
+    }
+
+    /**
+     * Returns the key of the slope of the direction (dx, dy), which is not
+     * (0, 0) and is the difference of two points with int coordinates, or
+     * NONE if no other point can have the same slope.
+     */
+    static long of(long dx, long dy) {
+        if (dx == 0) {
+            return pack(1, 0); // Vertical.
+        }
+        if (dy == 0) {
+            return pack(0, 1); // Horizontal.
+        }
+        if (dx < 0) {
+            dx = -dx;
+            dy = -dy;
+        }
+        long gcd = gcd(dx, Math.abs(dy));
+        dx /= gcd;
+        dy /= gcd;
+        if (dx > Integer.MAX_VALUE || Math.abs(dy) > Integer.MAX_VALUE) {
+            return NONE;
+        }
+        return pack((int) dy, (int) dx);
+    }
+
+    private static long pack(int dy, int dx) {
+        return (long) dy << 32 | dx;
+    }
+
+    /**
+     * Returns the change in y of the key, which may be negative.
+     */
+    static int dy(long key) {
+        return (int) (key >> 32);
+    }
+
+    /**
+     * Returns the change in x of the key, which is not negative unless the
+     * key is NONE.
+     */
+    static int dx(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Compares two keys by their slopes, in the same order as
+     * Point.slopeOrder(), where vertical slopes are the largest.
+     */
+    static int compare(long key1, long key2) {
+        if (dx(key1) == 0 || dx(key2) == 0) {
+            // Vertical slopes are only equal to each other.
+            return Integer.compare(dx(key2), dx(key1));
+        }
+        // Both changes in x are positive, so cross multiply directly.
+        long cross1 = (long) dy(key1) * dx(key2);
+        long cross2 = (long) dy(key2) * dx(key1);
+        return Long.compare(cross1, cross2);
+    }
+
+    /**
+     * Returns the greatest common divisor of two positive integers, using
+     * the binary gcd algorithm.
+     */
+    static long gcd(long a, long b) {
+        int shift = Long.numberOfTrailingZeros(a | b);
+        a >>>= Long.numberOfTrailingZeros(a);
+        while (b != 0) {
+            b >>>= Long.numberOfTrailingZeros(b);
+            if (a > b) {
+                long t = a;
+                a = b;
+                b = t;
+            }
+            b -= a;
+        }
+        return a << shift;
+    }
+}
@@ -0,0 +1,104 @@
+import java.lang.management.ManagementFactory;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * The measurement of a batch of operations on the current thread. The batch
+ * is warmed up so that the JIT compiler has compiled it, and then timed over
+ * several runs, giving the mean throughput, its relative standard deviation
+ * across runs, and the bytes allocated per operation. The results of the
+ * batch go to a volatile sink so that the JIT compiler cannot discard the
+ * work.
+ * <p>
+ * Shared by the benchmarks in other directories: put this directory on the
+ * classpath.
+ * 
+ * @author Yaohui Wu
+ */
+public class Benchmark {
+    // Sink for results so that the JIT compiler cannot discard the work.
+    private static volatile long sink;
+    private final double rate; // Mean operations per second.
+    private final double deviation; // Relative standard deviation of rate.
+    private final double bytes; // Bytes allocated per operation.
+
+    /**
+     * An operation to benchmark, which performs a batch of operations and
+     * returns a value that depends on their results.
+     */
+    public interface Batch {
+        long run();
+    }
+
+    private Benchmark(double rate, double deviation, double bytes) {
+        this.rate = rate;
+        this.deviation = deviation;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Runs the batch, which performs the given number of operations, the
+     * given number of times to warm up and then the given number of times
+     * to measure it.
+     */
+    public static Benchmark measure(int warmups, int runs, long operations,
+        Batch batch) {
+        validateRuns(runs);
+        ThreadMXBean threads =
+            (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < warmups; i += 1) {
+            sink += batch.run();
+        }
+        double[] rates = new double[runs];
+        long bytes = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < runs; i += 1) {
+            long start = System.nanoTime();
+            sink += batch.run();
+            rates[i] = operations / ((System.nanoTime() - start) / 1e9);
+        }
+        bytes = threads.getThreadAllocatedBytes(thread) - bytes;
+        double mean = 0.0;
+        for (double rate : rates) {
+            mean += rate / runs;
+        }
+        double variance = 0.0;
+        for (double rate : rates) {
+            variance += (rate - mean) * (rate - mean);
+        }
+        if (runs > 1) {
+            variance /= runs - 1;
+        }
+        return new Benchmark(mean, Math.sqrt(variance) / mean,
+            (double) bytes / operations / runs);
+    }
+
+    private static void validateRuns(int runs) {
+        if (runs <= 0) {
+            String error = "Invalid number of runs " + runs;
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Returns the mean number of operations per second.
+     */
+    public double rate() {
+        return rate;
+    }
+
+    /**
+     * Returns the standard deviation of the number of operations per second
+     * of single runs, relative to the mean.
+     */
+    public double deviation() {
+        return deviation;
+    }
+
+    /**
+     * Returns the number of bytes allocated per operation.
+     */
+    public double bytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,239 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A streaming sampler that keeps a random sample of at most k items from a
+ * stream of unknown length, either uniformly or with probability
+ * proportional to a weight given with each item.
+ * <p>
+ * Every item gets a random key, exponentially distributed with rate equal to
+ * its weight, and the sample is the k items with the smallest keys (weighted
+ * A-Res sampling by Efraimidis and Spirakis). Instead of drawing a key for
+ * every item, the sampler draws the total weight of items to skip before the
+ * next item enters the sample (Algorithm L for unit weights, A-ExpJ for
+ * general weights), so a stream of n items costs O(k log(n / k)) random
+ * numbers. Since the keys are kept, two samplers of the same stream split
+ * into shards can be merged into a sample of the whole stream.
+ * <p>
+ * Shared by the clients in other directories: put this directory on the
+ * classpath.
+ * 
+ * @author Yaohui Wu
+ */
+public class ReservoirSampler<Item> {
+    private final int capacity; // Maximum number of items in the sample.
+    private final SplittableRandom random;
+    // Items of the sample and their keys, as a max-heap ordered by key.
+    private final List<Item> items;
+    private final double[] keys;
+    private int size; // Number of items in the sample.
+    private long count; // Number of items offered.
+    // Weight of items still to skip before the next item enters the sample.
+    private double skipWeight;
+
+    /**
+     * Constructs an empty sampler of at most k items.
+     */
+    public ReservoirSampler(int k) {
+        this(k, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Constructs an empty sampler of at most k items whose random numbers
+     * are derived from the given seed.
+     */
+    public ReservoirSampler(int k, long seed) {
+        validateCapacity(k);
+        capacity = k;
+        random = new SplittableRandom(seed);
+        items = new ArrayList<>(k);
+        keys = new double[k];
+        size = 0;
+        count = 0;
+        skipWeight = 0.0;
+    }
+
+    private void validateCapacity(int k) {
+        if (k < 0) {
+            String error = "Invalid sample size " + k;
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Returns the number of items offered.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the number of items in the sample.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the next item offered with unit weight will enter the
+     * sample. Otherwise the caller may call skip() instead of offer(),
+     * without creating the item.
+     */
+    public boolean acceptsNext() {
+        return capacity > 0 && (size < capacity || skipWeight <= 1.0);
+    }
+
+    /**
+     * Counts an item of unit weight that does not enter the sample. May only
+     * be called when acceptsNext() is false.
+     */
+    public void skip() {
+        if (acceptsNext()) {
+            String error = "The next item enters the sample";
+            throw new IllegalStateException(error);
+        }
+        count += 1;
+        skipWeight -= 1.0;
+    }
+
+    /**
+     * Offers an item with unit weight, so that every item is equally likely
+     * to be in the sample.
+     */
+    public void offer(Item item) {
+        offer(item, 1.0);
+    }
+
+    /**
+     * Offers an item, which is kept with probability proportional to its
+     * weight.
+     */
+    public void offer(Item item, double weight) {
+        validateWeight(weight);
+        count += 1;
+        if (capacity == 0) {
+            return;
+        }
+        if (size < capacity) {
+            insert(item, exponential() / weight);
+            if (size == capacity) {
+                skipWeight = exponential() / keys[0];
+            }
+            return;
+        }
+        skipWeight -= weight;
+        if (skipWeight > 0.0) {
+            return;
+        }
+        /*
+         * The item beats the largest key in the sample, so its key is
+         * exponential with rate weight conditioned on being below it.
+         */
+        double threshold = keys[0];
+        double below = -Math.expm1(-weight * threshold);
+        double key = -Math.log1p(-random.nextDouble() * below) / weight;
+        replaceMax(item, Math.min(key, threshold));
+        skipWeight = exponential() / keys[0];
+    }
+
+    private void validateWeight(double weight) {
+        if (!(weight > 0.0) || Double.isInfinite(weight)) {
+            String error = "Invalid weight " + weight;
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Returns an exponential random number with rate 1.
+     */
+    private double exponential() {
+        return -Math.log(1.0 - random.nextDouble());
+    }
+
+    /**
+     * Adds an item to the heap, which is not full.
+     */
+    private void insert(Item item, double key) {
+        int i = size;
+        size += 1;
+        items.add(item);
+        // Sift up.
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (keys[parent] >= key) {
+                break;
+            }
+            items.set(i, items.get(parent));
+            keys[i] = keys[parent];
+            i = parent;
+        }
+        items.set(i, item);
+        keys[i] = key;
+    }
+
+    /**
+     * Replaces the item with the largest key in the heap.
+     */
+    private void replaceMax(Item item, double key) {
+        int i = 0;
+        // Sift down.
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && keys[child + 1] > keys[child]) {
+                child += 1;
+            }
+            if (keys[child] <= key) {
+                break;
+            }
+            items.set(i, items.get(child));
+            keys[i] = keys[child];
+            i = child;
+        }
+        items.set(i, item);
+        keys[i] = key;
+    }
+
+    /**
+     * Returns the items in the sample, in no particular order.
+     */
+    public List<Item> sample() {
+        return new ArrayList<>(items);
+    }
+
+    /**
+     * Returns a sampler of the concatenation of the streams of this sampler
+     * and the other, which must have the same sample size and be seeded
+     * independently. The samples of both are left as they are, but the
+     * merged sampler is seeded by splitting the random number generator of
+     * this sampler, which advances it.
+     */
+    public ReservoirSampler<Item> merge(ReservoirSampler<Item> other) {
+        validateMerge(other);
+        ReservoirSampler<Item> merged =
+            new ReservoirSampler<>(capacity, random.split().nextLong());
+        merged.count = count + other.count;
+        // Keep the items with the smallest keys of both samples.
+        for (ReservoirSampler<Item> sampler : List.of(this, other)) {
+            for (int i = 0; i < sampler.size; i += 1) {
+                double key = sampler.keys[i];
+                if (merged.size < capacity) {
+                    merged.insert(sampler.items.get(i), key);
+                } else if (key < merged.keys[0]) {
+                    merged.replaceMax(sampler.items.get(i), key);
+                }
+            }
+        }
+        if (merged.size == capacity && capacity > 0) {
+            merged.skipWeight = merged.exponential() / merged.keys[0];
+        }
+        return merged;
+    }
+
+    private void validateMerge(ReservoirSampler<Item> other) {
+        if (other == null || other.capacity != capacity) {
+            String error = "Samplers must have the same sample size";
+            throw new IllegalArgumentException(error);
+        }
+    }
+}
@@ -0,0 +1,386 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads whitespace-separated tokens of UTF-8 text, as a faster replacement
+ * for StdIn when reading large inputs. A file is memory-mapped one window at
+ * a time, and any other input is read through a single reusable buffer.
+ * <p>
+ * Tokens can be read as strings, as integers parsed straight from the bytes,
+ * or as a reusable CharSequence view that is only valid until the next token
+ * is read, so that no string is allocated for a token that is not retained.
+ * <p>
+ * Shared by the clients in other directories: put this directory on the
+ * classpath.
+ * 
+ * @author Yaohui Wu
+ */
+public class TokenReader implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Number of bytes of a file mapped at a time.
+    private static final long WINDOW_SIZE = 1L << 28;
+    private final ReadableByteChannel channel;
+    // True if the channel reads System.in, which close() leaves open.
+    private final boolean standardInput;
+    // Channel of the file being mapped, or null if reading a stream.
+    private final FileChannel file;
+    private long filePosition; // Offset of the next window of the file.
+    private ByteBuffer buffer;
+    private byte[] token; // Bytes of the next token.
+    private int tokenLength; // Number of bytes of the next token.
+    private boolean hasToken; // True if the next token has been read.
+    private boolean endOfInput; // True if the channel is exhausted.
+    private final TokenView view; // Reusable view of the current token.
+
+    /**
+     * Creates a reader of tokens from standard input.
+     */
+    public TokenReader() {
+        this(System.in);
+    }
+
+    /**
+     * Creates a reader of tokens from the input stream.
+     */
+    public TokenReader(InputStream in) {
+        this(Channels.newChannel(in), in == System.in);
+    }
+
+    /**
+     * Creates a reader of tokens from the channel.
+     */
+    public TokenReader(ReadableByteChannel channel) {
+        this(channel, false);
+    }
+
+    private TokenReader(ReadableByteChannel channel, boolean standardInput) {
+        validateChannel(channel);
+        this.channel = channel;
+        this.standardInput = standardInput;
+        file = null;
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.flip(); // Start with an empty buffer.
+        token = new byte[64];
+        view = new TokenView();
+    }
+
+    /**
+     * Creates a reader of tokens from the file, which is memory-mapped.
+     */
+    public TokenReader(Path path) {
+        if (path == null) {
+            String error = "Path cannot be null";
+            throw new IllegalArgumentException(error);
+        }
+        try {
+            file = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        channel = file;
+        standardInput = false;
+        filePosition = 0;
+        buffer = ByteBuffer.allocate(0);
+        token = new byte[64];
+        view = new TokenView();
+    }
+
+    /**
+     * Creates a reader of tokens from the file with the given name, or from
+     * standard input if the name is null.
+     */
+    public static TokenReader open(String filename) {
+        if (filename == null) {
+            return new TokenReader();
+        }
+        return new TokenReader(Path.of(filename));
+    }
+
+    private void validateChannel(ReadableByteChannel channel) {
+        if (channel == null) {
+            String error = "Channel cannot be null";
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Returns true if there is another token.
+     */
+    public boolean hasNext() {
+        if (!hasToken) {
+            hasToken = readToken();
+        }
+        return hasToken;
+    }
+
+    /**
+     * Returns the next token.
+     */
+    public String next() {
+        advance();
+        return new String(token, 0, tokenLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the next token as a view that is reused, and so is only valid
+     * until the next call to this reader. Call toString() on the view to
+     * retain the token.
+     */
+    public CharSequence nextToken() {
+        advance();
+        view.decode();
+        return view;
+    }
+
+    /**
+     * Returns the next token parsed as a decimal integer.
+     */
+    public int nextInt() {
+        advance();
+        int i = 0;
+        boolean negative = false;
+        if (tokenLength > 1 && (token[0] == '-' || token[0] == '+')) {
+            negative = token[0] == '-';
+            i = 1;
+        }
+        if (i == tokenLength) {
+            throw invalidInt();
+        }
+        long value = 0;
+        for (; i < tokenLength; i += 1) {
+            int digit = token[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw invalidInt();
+            }
+            value = 10 * value + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw invalidInt();
+            }
+        }
+        if (negative) {
+            return (int) -value;
+        }
+        if (value > Integer.MAX_VALUE) {
+            throw invalidInt();
+        }
+        return (int) value;
+    }
+
+    private NumberFormatException invalidInt() {
+        String text = new String(token, 0, tokenLength, StandardCharsets.UTF_8);
+        String error = "Invalid integer " + text;
+        return new NumberFormatException(error);
+    }
+
+    /**
+     * Skips the next token without decoding it.
+     */
+    public void skip() {
+        advance();
+    }
+
+    private void advance() {
+        if (!hasNext()) {
+            String error = "No more tokens";
+            throw new NoSuchElementException(error);
+        }
+        hasToken = false;
+    }
+
+    /**
+     * Reads the next token into the token array, returning false if the
+     * input has no more tokens.
+     */
+    private boolean readToken() {
+        tokenLength = 0;
+        // Skip whitespace.
+        while (true) {
+            if (!buffer.hasRemaining() && !fill()) {
+                return false;
+            }
+            int i = buffer.position();
+            int limit = buffer.limit();
+            while (i < limit && isWhitespace(buffer.get(i))) {
+                i += 1;
+            }
+            buffer.position(i);
+            if (i < limit) {
+                break;
+            }
+        }
+        /*
+         * Copy bytes up to the next whitespace, refilling the buffer as the
+         * token may span buffer boundaries.
+         */
+        while (true) {
+            int start = buffer.position();
+            int limit = buffer.limit();
+            int i = start;
+            while (i < limit && !isWhitespace(buffer.get(i))) {
+                i += 1;
+            }
+            append(start, i - start);
+            buffer.position(i);
+            if (i < limit || !fill()) {
+                return true;
+            }
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\t' || b == '\r' || b == '\f'
+            || b == 0x0B;
+    }
+
+    /**
+     * Appends the bytes of the buffer in [offset, offset + length) to the
+     * token.
+     */
+    private void append(int offset, int length) {
+        if (tokenLength + length > token.length) {
+            int capacity = Math.max(2 * token.length, tokenLength + length);
+            byte[] copy = new byte[capacity];
+            System.arraycopy(token, 0, copy, 0, tokenLength);
+            token = copy;
+        }
+        buffer.get(offset, token, tokenLength, length);
+        tokenLength += length;
+    }
+
+    /**
+     * Refills the empty buffer from the channel, or maps the next window of
+     * the file, returning false at the end of the input.
+     */
+    private boolean fill() {
+        if (endOfInput) {
+            return false;
+        }
+        try {
+            if (file != null) {
+                return mapWindow();
+            }
+            buffer.clear();
+            try {
+                int n = 0;
+                while (n == 0) {
+                    n = channel.read(buffer);
+                }
+                if (n < 0) {
+                    endOfInput = true;
+                }
+            } finally {
+                buffer.flip();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.hasRemaining();
+    }
+
+    private boolean mapWindow() throws IOException {
+        long remaining = file.size() - filePosition;
+        if (remaining <= 0) {
+            endOfInput = true;
+            return false;
+        }
+        long length = Math.min(remaining, WINDOW_SIZE);
+        buffer = file.map(FileChannel.MapMode.READ_ONLY, filePosition, length);
+        filePosition += length;
+        return true;
+    }
+
+    /**
+     * Closes the channel, unless it reads standard input, which is left open
+     * for the rest of the program.
+     */
+    @Override
+    public void close() {
+        if (standardInput) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A view of the chars of the current token, decoded into a reusable
+     * array.
+     */
+    private class TokenView implements CharSequence {
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8
+            .newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private char[] chars = new char[64];
+        private int length;
+
+        /**
+         * Decodes the bytes of the token, copying ASCII bytes directly.
+         */
+        private void decode() {
+            if (chars.length < tokenLength) {
+                chars = new char[Math.max(2 * chars.length, tokenLength)];
+            }
+            int i = 0;
+            while (i < tokenLength && token[i] >= 0) {
+                chars[i] = (char) token[i];
+                i += 1;
+            }
+            length = i;
+            if (i == tokenLength) {
+                return;
+            }
+            // A UTF-8 token never has more chars than bytes.
+            ByteBuffer in = ByteBuffer.wrap(token, i, tokenLength - i);
+            CharBuffer out = CharBuffer.wrap(chars, i, chars.length - i);
+            decoder.reset();
+            decoder.decode(in, out, true);
+            decoder.flush(out);
+            length = out.position();
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                String error = "Index " + index + " out of bounds";
+                throw new IndexOutOfBoundsException(error);
+            }
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                String error = "Range [" + start + ", " + end
+                    + ") out of bounds";
+                throw new IndexOutOfBoundsException(error);
+            }
+            return new String(chars, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+    }
+}
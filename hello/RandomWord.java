@@ -1,27 +1,39 @@
-import edu.princeton.cs.algs4.StdIn;
 import edu.princeton.cs.algs4.StdOut;
-import edu.princeton.cs.algs4.StdRandom;
 
 public class RandomWord {
     /**
-     * Reads a sequence of words from standard input and prints one of those
-     * words uniformly at random.
+     * Reads a sequence of words from the file named by the optional
+     * argument, or from standard input, and prints one of those words
+     * uniformly at random.
      */
     public static void main(String[] args) {
         /*
-         * Knuth's method: when reading the ith word, select it with
-         * probability 1/i to be the champion, replacing the previous champion.
+         * Knuth's method generalized by a reservoir of one word: each word
+         * read is equally likely to be the survivor, but the sampler skips
+         * ahead to the next champion instead of drawing a random number for
+         * every word, so skipped words are never decoded.
          */
-        String champion = "";
-        int i = 1;
-        while (!StdIn.isEmpty()) {
-            String word = StdIn.readString();
-            if (StdRandom.bernoulli(1.0 / i)) {
-                champion = word;
+        ReservoirSampler<String> sampler = new ReservoirSampler<>(1);
+        // Read the words from a file, or from standard input.
+        String filename = null;
+        if (args.length >= 1) {
+            filename = args[0];
+        }
+        try (TokenReader in = TokenReader.open(filename)) {
+            while (in.hasNext()) {
+                if (sampler.acceptsNext()) {
+                    sampler.offer(in.next());
+                } else {
+                    in.skip();
+                    sampler.skip();
+                }
             }
-            i += 1;
         }
         // After reading all of the words, print the surviving champion.
+        String champion = "";
+        if (sampler.size() > 0) {
+            champion = sampler.sample().get(0);
+        }
         StdOut.println(champion);
     }
 }
@@ -0,0 +1,144 @@
+/**
+ * A percolation system for very large grids. The open sites are stored in a
+ * bitset, and the union-find forest is a single int array whose roots also
+ * hold the rank and the connected-to-bottom flag, so a site takes 4 bytes and
+ * 1 bit, or about 1.6 GB for a 20,000-by-20,000 grid.
+ * 
+ * @author Yaohui Wu
+ */
+public class CompactPercolation {
+    // Largest grid size whose sites can be indexed by an int.
+    private static final int MAX_SIZE = 46340;
+    private int size; // Grid size.
+    private long[] open; // Bitset of open sites.
+    private int numOpenSites; // Number of open sites.
+    /*
+     * Union-find forest over the open sites and the virtual top site, where
+     * a set is flagged if it is connected to the bottom.
+     */
+    private FlaggedUnionFind forest;
+
+    /**
+     * Creates an n-by-n grid, with all sites initially blocked.
+     */
+    public CompactPercolation(int n) {
+        validateSize(n);
+        size = n;
+        int numSites = size * size + 1;
+        open = new long[(numSites + Long.SIZE - 1) / Long.SIZE];
+        setOpen(0); // Virtual top site.
+        numOpenSites = 0;
+        forest = new FlaggedUnionFind(numSites);
+    }
+
+    private void validateSize(int n) {
+        if (n <= 0 || n > MAX_SIZE) {
+            String error = "Invalid grid size " + n;
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Converts 2D coordinates to 1D coordinates.
+     */
+    private int xyTo1D(int x, int y) {
+        return size * (x - 1) + y;
+    }
+
+    private boolean isOpen(int index) {
+        return (open[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private void setOpen(int index) {
+        open[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Opens the site (row, col) if it is not open already.
+     */
+    public void open(int row, int col) {
+        validateSite(row, col);
+        int index = xyTo1D(row, col);
+        if (isOpen(index)) {
+            return;
+        }
+        setOpen(index);
+        if (row == size) {
+            forest.reset(index, true);
+        }
+        numOpenSites += 1;
+        // Root of the set that the new site is in.
+        int root = index;
+        // Connect to virtual top site, or to the site above.
+        if (row == 1) {
+            root = forest.union(root, forest.find(0));
+        } else {
+            root = connectSite(root, index - size); // Up.
+        }
+        // Connect to adjacent open sites.
+        if (col > 1) {
+            root = connectSite(root, index - 1); // Left.
+        }
+        if (col < size) {
+            root = connectSite(root, index + 1); // Right.
+        }
+        if (row < size) {
+            connectSite(root, index + size); // Down.
+        }
+    }
+
+    private void validateSite(int row, int col) {
+        validateIndex(row);
+        validateIndex(col);
+    }
+
+    private void validateIndex(int index) {
+        if (index <= 0 || index > size) {
+            String error = "Index " + index + " out of bounds";
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Connects the set with the given root to the site if the site is open,
+     * and returns the root of the resulting set.
+     */
+    private int connectSite(int root, int index) {
+        if (isOpen(index)) {
+            return forest.union(root, forest.find(index));
+        }
+        return root;
+    }
+
+    /**
+     * Returns true if the site (row, col) is open.
+     */
+    public boolean isOpen(int row, int col) {
+        validateSite(row, col);
+        return isOpen(xyTo1D(row, col));
+    }
+
+    /**
+     * Returns true if the site (row, col) is full.
+     */
+    public boolean isFull(int row, int col) {
+        validateSite(row, col);
+        int index = xyTo1D(row, col);
+        return isOpen(index) && forest.find(index) == forest.find(0);
+    }
+
+    /**
+     * Returns the number of open sites.
+     */
+    public int numberOfOpenSites() {
+        return numOpenSites;
+    }
+
+    /**
+     * Returns true if the system percolates, that is, there is a full site in
+     * the bottom row.
+     */
+    public boolean percolates() {
+        return forest.isFlagged(forest.find(0));
+    }
+}
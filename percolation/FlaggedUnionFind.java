@@ -0,0 +1,78 @@
+/**
+ * A union-find forest over the sites 0 to n - 1, linking by rank and halving
+ * paths, where each set carries a flag that survives unions, such as being
+ * connected to the top or to the bottom. The forest is a single int array:
+ * a positive entry is one more than the parent of the site, and any other
+ * entry marks a root and stores -(rank << 1 | flag), so a freshly allocated
+ * array is a forest of unflagged singletons.
+ *
+ * @author Yaohui Wu
+ */
+final class FlaggedUnionFind {
+    private static final int FLAG = 1;
+    private final int[] parent;
+
+    /**
+     * Creates a forest of n unflagged singletons.
+     */
+    FlaggedUnionFind(int n) {
+        parent = new int[n];
+    }
+
+    /**
+     * Makes the site an unflagged singleton, or a flagged one if asked to.
+     * Any sites linked below it must be reset as well.
+     */
+    void reset(int site, boolean flag) {
+        parent[site] = flag ? -FLAG : 0;
+    }
+
+    /**
+     * Returns the root of the set that the site is in, halving the path on
+     * the way.
+     */
+    int find(int site) {
+        while (parent[site] > 0) {
+            int next = parent[site] - 1;
+            if (parent[next] > 0) {
+                // Point the site to its grandparent.
+                parent[site] = parent[next];
+            }
+            site = parent[site] - 1;
+        }
+        return site;
+    }
+
+    /**
+     * Links two roots by rank and returns the root of the merged set, which
+     * is flagged if either set was.
+     */
+    int union(int root1, int root2) {
+        if (root1 == root2) {
+            return root1;
+        }
+        int entry1 = -parent[root1];
+        int entry2 = -parent[root2];
+        int flag = (entry1 | entry2) & FLAG;
+        int rank1 = entry1 >> 1;
+        int rank2 = entry2 >> 1;
+        if (rank1 < rank2) {
+            parent[root1] = root2 + 1;
+            parent[root2] = -(rank2 << 1 | flag);
+            return root2;
+        }
+        if (rank1 == rank2) {
+            rank1 += 1;
+        }
+        parent[root2] = root1 + 1;
+        parent[root1] = -(rank1 << 1 | flag);
+        return root1;
+    }
+
+    /**
+     * Returns true if the set with the given root is flagged.
+     */
+    boolean isFlagged(int root) {
+        return (-parent[root] & FLAG) != 0;
+    }
+}
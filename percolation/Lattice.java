@@ -0,0 +1,260 @@
+/**
+ * A lattice of sites for percolation, given by the number of sites, the
+ * sites on the top and bottom faces, and the neighbors of each site. Sites
+ * are numbered from 0 to the number of sites minus 1.
+ * 
+ * @author Yaohui Wu
+ */
+public abstract class Lattice {
+    /**
+     * Returns the number of sites.
+     */
+    public abstract int numberOfSites();
+
+    /**
+     * Returns the maximum number of neighbors of a site.
+     */
+    public abstract int maxDegree();
+
+    /**
+     * Returns true if the site is on the top face.
+     */
+    public abstract boolean isTop(int site);
+
+    /**
+     * Returns true if the site is on the bottom face.
+     */
+    public abstract boolean isBottom(int site);
+
+    /**
+     * Stores the neighbors of the site in the array, which has room for at
+     * least maxDegree() sites, and returns the number of neighbors.
+     */
+    public abstract int neighbors(int site, int[] neighbors);
+
+    /**
+     * Returns an n-by-n square lattice, where each site has 4 neighbors.
+     */
+    public static Lattice square(int n) {
+        validateSize(n);
+        return new PlanarLattice(n, false);
+    }
+
+    /**
+     * Returns an n-by-n triangular lattice, that is, a square lattice with
+     * one diagonal added to each cell, where each site has 6 neighbors.
+     */
+    public static Lattice triangular(int n) {
+        validateSize(n);
+        return new PlanarLattice(n, true);
+    }
+
+    /**
+     * Returns an n-by-n hexagonal (honeycomb) lattice drawn as a brick wall,
+     * where each site has 3 neighbors.
+     */
+    public static Lattice hexagonal(int n) {
+        validateSize(n);
+        return new HexagonalLattice(n);
+    }
+
+    /**
+     * Returns an n-by-n-by-n cubic lattice, where each site has 6 neighbors
+     * and the top and bottom are opposite faces of the cube.
+     */
+    public static Lattice cubic(int n) {
+        validateSize(n);
+        if ((long) n * n * n >= Integer.MAX_VALUE) {
+            String error = "Invalid lattice size " + n;
+            throw new IllegalArgumentException(error);
+        }
+        return new CubicLattice(n);
+    }
+
+    private static void validateSize(int n) {
+        if (n <= 0 || (long) n * n >= Integer.MAX_VALUE) {
+            String error = "Invalid lattice size " + n;
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Square or triangular lattice with site (row, col) numbered
+     * n * row + col, from 0.
+     */
+    private static class PlanarLattice extends Lattice {
+        private final int size;
+        private final boolean diagonal; // True for the triangular lattice.
+
+        public PlanarLattice(int n, boolean triangular) {
+            size = n;
+            diagonal = triangular;
+        }
+
+        public int numberOfSites() {
+            return size * size;
+        }
+
+        public int maxDegree() {
+            if (diagonal) {
+                return 6;
+            }
+            return 4;
+        }
+
+        public boolean isTop(int site) {
+            return site < size;
+        }
+
+        public boolean isBottom(int site) {
+            return site >= size * (size - 1);
+        }
+
+        public int neighbors(int site, int[] neighbors) {
+            int row = site / size;
+            int col = site % size;
+            int count = 0;
+            if (col > 0) {
+                neighbors[count] = site - 1; // Left.
+                count += 1;
+            }
+            if (col < size - 1) {
+                neighbors[count] = site + 1; // Right.
+                count += 1;
+            }
+            if (row > 0) {
+                neighbors[count] = site - size; // Up.
+                count += 1;
+                if (diagonal && col < size - 1) {
+                    neighbors[count] = site - size + 1; // Up right.
+                    count += 1;
+                }
+            }
+            if (row < size - 1) {
+                neighbors[count] = site + size; // Down.
+                count += 1;
+                if (diagonal && col > 0) {
+                    neighbors[count] = site + size - 1; // Down left.
+                    count += 1;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Honeycomb lattice as a brick wall: each site (row, col) is joined to
+     * its left and right neighbors, and to the site below if row + col is
+     * even or the site above if it is odd.
+     */
+    private static class HexagonalLattice extends Lattice {
+        private final int size;
+
+        public HexagonalLattice(int n) {
+            size = n;
+        }
+
+        public int numberOfSites() {
+            return size * size;
+        }
+
+        public int maxDegree() {
+            return 3;
+        }
+
+        public boolean isTop(int site) {
+            return site < size;
+        }
+
+        public boolean isBottom(int site) {
+            return site >= size * (size - 1);
+        }
+
+        public int neighbors(int site, int[] neighbors) {
+            int row = site / size;
+            int col = site % size;
+            int count = 0;
+            if (col > 0) {
+                neighbors[count] = site - 1; // Left.
+                count += 1;
+            }
+            if (col < size - 1) {
+                neighbors[count] = site + 1; // Right.
+                count += 1;
+            }
+            if ((row + col) % 2 == 0) {
+                if (row < size - 1) {
+                    neighbors[count] = site + size; // Down.
+                    count += 1;
+                }
+            } else if (row > 0) {
+                neighbors[count] = site - size; // Up.
+                count += 1;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Cubic lattice with site (layer, row, col) numbered
+     * n * n * layer + n * row + col, from 0, where the top face is the first
+     * layer and the bottom face is the last layer.
+     */
+    private static class CubicLattice extends Lattice {
+        private final int size;
+        private final int layer; // Number of sites in a layer.
+
+        public CubicLattice(int n) {
+            size = n;
+            layer = n * n;
+        }
+
+        public int numberOfSites() {
+            return layer * size;
+        }
+
+        public int maxDegree() {
+            return 6;
+        }
+
+        public boolean isTop(int site) {
+            return site < layer;
+        }
+
+        public boolean isBottom(int site) {
+            return site >= layer * (size - 1);
+        }
+
+        public int neighbors(int site, int[] neighbors) {
+            int z = site / layer;
+            int row = site % layer / size;
+            int col = site % size;
+            int count = 0;
+            if (col > 0) {
+                neighbors[count] = site - 1;
+                count += 1;
+            }
+            if (col < size - 1) {
+                neighbors[count] = site + 1;
+                count += 1;
+            }
+            if (row > 0) {
+                neighbors[count] = site - size;
+                count += 1;
+            }
+            if (row < size - 1) {
+                neighbors[count] = site + size;
+                count += 1;
+            }
+            if (z > 0) {
+                neighbors[count] = site - layer; // Layer above.
+                count += 1;
+            }
+            if (z < size - 1) {
+                neighbors[count] = site + layer; // Layer below.
+                count += 1;
+            }
+            return count;
+        }
+    }
+}
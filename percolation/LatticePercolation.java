@@ -0,0 +1,154 @@
+import java.util.SplittableRandom;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * A percolation system on an arbitrary lattice, where the system percolates
+ * if a site on the top face is connected to a site on the bottom face
+ * through open sites.
+ * 
+ * @author Yaohui Wu
+ */
+public class LatticePercolation {
+    private Lattice lattice;
+    private int numSites; // Number of sites in the lattice.
+    private int top; // Virtual top site.
+    // 0: blocked, 1: open.
+    private byte[] sites;
+    private int numOpenSites; // Number of open sites.
+    /*
+     * Union-find forest over the open sites and the virtual top site, where
+     * a set is flagged if it is connected to the bottom.
+     */
+    private FlaggedUnionFind forest;
+    private int[] neighbors; // Scratch array for the neighbors of a site.
+
+    /**
+     * Creates a percolation system on the lattice, with all sites initially
+     * blocked.
+     */
+    public LatticePercolation(Lattice lattice) {
+        validateLattice(lattice);
+        this.lattice = lattice;
+        numSites = lattice.numberOfSites();
+        top = numSites;
+        sites = new byte[numSites + 1];
+        sites[top] = 1;
+        numOpenSites = 0;
+        forest = new FlaggedUnionFind(numSites + 1);
+        neighbors = new int[lattice.maxDegree()];
+    }
+
+    private void validateLattice(Lattice lattice) {
+        if (lattice == null) {
+            String error = "Lattice cannot be null";
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    private void validateSite(int site) {
+        if (site < 0 || site >= numSites) {
+            String error = "Site " + site + " out of bounds";
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Opens the site if it is not open already.
+     */
+    public void open(int site) {
+        validateSite(site);
+        if (sites[site] != 0) {
+            return;
+        }
+        sites[site] = 1;
+        if (lattice.isBottom(site)) {
+            forest.reset(site, true);
+        }
+        numOpenSites += 1;
+        // Root of the set that the new site is in.
+        int root = site;
+        if (lattice.isTop(site)) {
+            root = forest.union(root, forest.find(top));
+        }
+        int degree = lattice.neighbors(site, neighbors);
+        for (int i = 0; i < degree; i += 1) {
+            int neighbor = neighbors[i];
+            if (sites[neighbor] != 0) {
+                root = forest.union(root, forest.find(neighbor));
+            }
+        }
+    }
+
+    /**
+     * Returns true if the site is open.
+     */
+    public boolean isOpen(int site) {
+        validateSite(site);
+        return sites[site] != 0;
+    }
+
+    /**
+     * Returns true if the site is full, that is, connected to the top face
+     * through open sites.
+     */
+    public boolean isFull(int site) {
+        validateSite(site);
+        return sites[site] != 0 && forest.find(site) == forest.find(top);
+    }
+
+    /**
+     * Returns the number of open sites.
+     */
+    public int numberOfOpenSites() {
+        return numOpenSites;
+    }
+
+    /**
+     * Returns true if the system percolates, that is, there is a full site on
+     * the bottom face.
+     */
+    public boolean percolates() {
+        return forest.isFlagged(forest.find(top));
+    }
+
+    /**
+     * Takes a lattice (square, triangular, hexagonal or cubic), its size n,
+     * the number of trials and an optional seed, and estimates the
+     * percolation threshold of the lattice in parallel.
+     */
+    public static void main(String[] args) {
+        String type = args[0];
+        int n = Integer.parseInt(args[1]);
+        int trials = Integer.parseInt(args[2]);
+        long seed = new SplittableRandom().nextLong();
+        if (args.length >= 4) {
+            seed = Long.parseLong(args[3]);
+        }
+        Lattice lattice;
+        if (type.equals("square")) {
+            lattice = Lattice.square(n);
+        } else if (type.equals("triangular")) {
+            lattice = Lattice.triangular(n);
+        } else if (type.equals("hexagonal")) {
+            lattice = Lattice.hexagonal(n);
+        } else if (type.equals("cubic")) {
+            lattice = Lattice.cubic(n);
+        } else {
+            String error = "Unknown lattice " + type;
+            throw new IllegalArgumentException(error);
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        PercolationStats stats = new PercolationStats(lattice, trials, seed,
+            threads);
+        StdOut.printf("%-24s", "mean");
+        StdOut.println("= " + stats.mean());
+        StdOut.printf("%-24s", "stddev");
+        StdOut.println("= " + stats.stddev());
+        StdOut.println(
+            "95% confidence interval = ["
+            + stats.confidenceLo() + ", "
+            + stats.confidenceHi() + "]"
+        );
+    }
+}
@@ -1,5 +1,3 @@
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
-
 /**
  * A percolation system.
  * 
@@ -7,10 +5,22 @@ import edu.princeton.cs.algs4.WeightedQuickUnionUF;
  */
 public class Percolation {
     private int size; // Grid size.
-    // 0: blocked, 1: open, 2: open sites connected to bottom.
+    private Lattice lattice; // Square lattice giving the neighbors.
+    private int top; // Virtual top site.
+    /*
+     * 0: blocked, 1: open, 2: open and known to be full. A full site stays
+     * full, so the last state is a permanent cache for isFull().
+     */
     private byte[] sites;
     private int numOpenSites; // Number of open sites.
-    private WeightedQuickUnionUF openSites; // Open sites.
+    private int topRoot; // Root of the virtual top site's set.
+    private int topRootOpenSites; // Number of open sites when it was found.
+    /*
+     * Union-find forest over the open sites and the virtual top site, where
+     * a set is flagged if it is connected to the bottom.
+     */
+    private FlaggedUnionFind forest;
+    private int[] neighbors; // Scratch array for the neighbors of a site.
 
     /**
      * Creates an n-by-n grid, with all sites initially blocked.
@@ -18,27 +28,29 @@ public class Percolation {
     public Percolation(int n) {
         validateSize(n);
         size = n;
+        lattice = Lattice.square(n);
+        top = size * size;
         sites = new byte[size * size + 1];
-        sites[0] = 1; // Virtual top site.
-        for (int i = 1; i < size * size + 1; i += 1) {
-            sites[i] = 0;
-        }
+        sites[top] = 1;
         numOpenSites = 0;
-        openSites = new WeightedQuickUnionUF(size * size + 1);
+        topRoot = top;
+        topRootOpenSites = 0;
+        forest = new FlaggedUnionFind(size * size + 1);
+        neighbors = new int[lattice.maxDegree()];
     }
 
     private void validateSize(int n) {
-        if (n <= 0) {
+        if (n <= 0 || (long) n * n >= Integer.MAX_VALUE) {
             String error = "Invalid grid size " + n;
             throw new IllegalArgumentException(error);
         }
     }
 
     /**
-     * Converts 2D coordinates to 1D coordinates.
+     * Converts 2D coordinates to the flat index of the site in the lattice.
      */
     private int xyTo1D(int x, int y) {
-        return size * (x - 1) + y;
+        return size * (x - 1) + (y - 1);
     }
 
     /**
@@ -46,25 +58,87 @@ public class Percolation {
      */
     public void open(int row, int col) {
         validateSite(row, col);
-        if (isOpen(row, col)) {
+        openSite(xyTo1D(row, col));
+    }
+
+    /**
+     * Opens the sites (rows[i], cols[i]) in order and returns the first i
+     * after which the system percolates, or -1 if it does not percolate.
+     */
+    public int openAll(int[] rows, int[] cols) {
+        validateSites(rows, cols);
+        int first = -1;
+        for (int i = 0; i < rows.length; i += 1) {
+            openSite(xyTo1D(rows[i], cols[i]));
+            if (first == -1 && percolates()) {
+                first = i;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Opens the sites given as flat indices in order and returns the first i
+     * after which the system percolates, or -1 if it does not percolate. The
+     * flat index of the site (row, col) is n * (row - 1) + (col - 1).
+     */
+    public int openAll(int[] flatIndices) {
+        validateSites(flatIndices);
+        int first = -1;
+        for (int i = 0; i < flatIndices.length; i += 1) {
+            openSite(flatIndices[i]);
+            if (first == -1 && percolates()) {
+                first = i;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Opens the sites given as flat indices in order until the system
+     * percolates, and returns the number of sites taken from the array, or -1
+     * if the system does not percolate.
+     */
+    public int openUntilPercolates(int[] flatIndices) {
+        validateSites(flatIndices);
+        if (percolates()) {
+            return 0;
+        }
+        for (int i = 0; i < flatIndices.length; i += 1) {
+            openSite(flatIndices[i]);
+            if (percolates()) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Opens the site at the given flat index if it is not open already. The
+     * index must be valid.
+     */
+    private void openSite(int index) {
+        if (sites[index] != 0) {
             return;
         }
-        int index = xyTo1D(row, col);
-        if (row == size) {
-            sites[index] = 2;
-        } else {
-            sites[index] = 1;
+        sites[index] = 1;
+        if (lattice.isBottom(index)) {
+            forest.reset(index, true);
         }
         numOpenSites += 1;
-        // Connect to virtual top site.
-        if (row == 1) {
-            connect(0, index);
+        // Root of the set that the new site is in.
+        int root = index;
+        if (lattice.isTop(index)) {
+            root = forest.union(root, forest.find(top));
         }
         // Connect to adjacent open sites.
-        connectSites(row, col, row, col - 1); // Left.
-        connectSites(row, col, row, col + 1); // Right.
-        connectSites(row, col, row - 1, col); // Up.
-        connectSites(row, col, row + 1, col); // Down.
+        int degree = lattice.neighbors(index, neighbors);
+        for (int i = 0; i < degree; i += 1) {
+            int neighbor = neighbors[i];
+            if (sites[neighbor] != 0) {
+                root = forest.union(root, forest.find(neighbor));
+            }
+        }
     }
 
     private void validateSite(int row, int col) {
@@ -79,36 +153,31 @@ public class Percolation {
         }
     }
 
-    private boolean validSite(int row, int col) {
-        return validIndex(row) && validIndex(col);
-    }
-
     private boolean validIndex(int index) {
         return index > 0 && index <= size;
     }
 
-    /**
-     * Connects two sites if the second site is open.
-     */
-    private void connectSites(int row1, int col1, int row2, int col2) {
-        if (validSite(row2, col2) && isOpen(row2, col2)) {
-            int index1 = xyTo1D(row1, col1);
-            int index2 = xyTo1D(row2, col2);
-            connect(index1, index2);
+    private void validateSites(int[] rows, int[] cols) {
+        if (rows == null || cols == null || rows.length != cols.length) {
+            String error = "Rows and columns must have the same length";
+            throw new IllegalArgumentException(error);
+        }
+        for (int i = 0; i < rows.length; i += 1) {
+            validateSite(rows[i], cols[i]);
         }
     }
 
-    private void connect(int index1, int index2) {
-        int root1 = openSites.find(index1);
-        int root2 = openSites.find(index2);
-        openSites.union(index1, index2);
-        /*
-         * If either site is connected to the bottom before the connection,
-         * then both sites are connected to the bottom after the connection.
-         */
-        if (sites[root1] == 2 || sites[root2] == 2) {
-            int root = openSites.find(index1);
-            sites[root] = 2;
+    private void validateSites(int[] flatIndices) {
+        if (flatIndices == null) {
+            String error = "Indices cannot be null";
+            throw new IllegalArgumentException(error);
+        }
+        int numSites = size * size;
+        for (int index : flatIndices) {
+            if (index < 0 || index >= numSites) {
+                String error = "Index " + index + " out of bounds";
+                throw new IllegalArgumentException(error);
+            }
         }
     }
 
@@ -127,7 +196,46 @@ public class Percolation {
     public boolean isFull(int row, int col) {
         validateSite(row, col);
         int element = xyTo1D(row, col);
-        return openSites.find(element) == openSites.find(0);
+        return isFull(element);
+    }
+
+    private boolean isFull(int index) {
+        if (sites[index] != 1) {
+            return sites[index] == 2;
+        }
+        if (forest.find(index) == topRoot()) {
+            sites[index] = 2;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the root of the set that the virtual top site is in, finding it
+     * again only if a site has been opened since the last call.
+     */
+    private int topRoot() {
+        if (topRootOpenSites != numOpenSites) {
+            topRoot = forest.find(top);
+            topRootOpenSites = numOpenSites;
+        }
+        return topRoot;
+    }
+
+    /**
+     * Returns an n-by-n array whose entry [row - 1][col - 1] is true if the
+     * site (row, col) is full, computed in one pass over the grid.
+     */
+    public boolean[][] fullMask() {
+        boolean[][] mask = new boolean[size][size];
+        int index = 0;
+        for (int row = 0; row < size; row += 1) {
+            for (int col = 0; col < size; col += 1) {
+                mask[row][col] = isFull(index);
+                index += 1;
+            }
+        }
+        return mask;
     }
 
     /**
@@ -146,7 +254,6 @@ public class Percolation {
          * The system percolates if the root of the set that the virtual top
          * site is in is connected to the bottom.
          */
-        int root = openSites.find(0);
-        return sites[root] == 2;
+        return forest.isFlagged(topRoot());
     }
 }
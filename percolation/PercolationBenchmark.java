@@ -0,0 +1,134 @@
+import java.util.SplittableRandom;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * Benchmarks the hot paths of the percolation system, open(), isFull() and
+ * percolates(), and the full experiments, across grid sizes and densities of
+ * open sites. Each benchmark is measured on the current thread with the
+ * Benchmark harness, reporting the mean throughput, its relative standard
+ * deviation across runs and the bytes allocated per operation.
+ * 
+ * @author Yaohui Wu
+ */
+public class PercolationBenchmark {
+    private static final int[] SIZES = {100, 500, 2000};
+    private static final int[] EXPERIMENT_SIZES = {100, 200, 500, 1000, 2000,
+        4000};
+    private static final double[] DENSITIES = {0.3, 0.593, 0.8};
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int ITERATIONS = 5;
+    private static final int PERCOLATES_CALLS = 1000000;
+    private static final long SEED = 226;
+
+    /**
+     * Measures the batch, which performs the given number of operations, and
+     * prints its throughput and allocation rate.
+     */
+    private static void measure(String name, int n, double density,
+        long operations, Benchmark.Batch batch) {
+        Benchmark result = Benchmark.measure(WARMUP_ITERATIONS, ITERATIONS,
+            operations, batch);
+        StdOut.printf("%-14s %6d %8.3f %16.1f %7.1f%% %12.1f\n", name, n,
+            density, result.rate(), 100 * result.deviation(), result.bytes());
+    }
+
+    /**
+     * Returns the first density * n * n sites of a random permutation of an
+     * n-by-n grid, as flat indices.
+     */
+    private static int[] randomSites(int n, double density) {
+        int numSites = n * n;
+        int[] sites = new int[numSites];
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < numSites; i += 1) {
+            int j = random.nextInt(i + 1);
+            sites[i] = sites[j];
+            sites[j] = i;
+        }
+        int count = (int) (density * numSites);
+        int[] prefix = new int[count];
+        System.arraycopy(sites, 0, prefix, 0, count);
+        return prefix;
+    }
+
+    /**
+     * Returns an n-by-n grid with the given sites open.
+     */
+    private static Percolation openGrid(int n, int[] sites) {
+        Percolation percolation = new Percolation(n);
+        for (int site : sites) {
+            percolation.open(site / n + 1, site % n + 1);
+        }
+        return percolation;
+    }
+
+    private static void benchmarkOpen(int n, double density) {
+        int[] sites = randomSites(n, density);
+        measure("open", n, density, sites.length, () -> {
+            Percolation percolation = openGrid(n, sites);
+            return percolation.numberOfOpenSites();
+        });
+    }
+
+    private static void benchmarkIsFull(int n, double density) {
+        Percolation percolation = openGrid(n, randomSites(n, density));
+        measure("isFull", n, density, (long) n * n, () -> {
+            long full = 0;
+            for (int row = 1; row <= n; row += 1) {
+                for (int col = 1; col <= n; col += 1) {
+                    if (percolation.isFull(row, col)) {
+                        full += 1;
+                    }
+                }
+            }
+            return full;
+        });
+    }
+
+    private static void benchmarkPercolates(int n, double density) {
+        Percolation percolation = openGrid(n, randomSites(n, density));
+        measure("percolates", n, density, PERCOLATES_CALLS, () -> {
+            long count = 0;
+            for (int i = 0; i < PERCOLATES_CALLS; i += 1) {
+                if (percolation.percolates()) {
+                    count += 1;
+                }
+            }
+            return count;
+        });
+    }
+
+    private static void benchmarkExperiment(int n, int trials,
+        PercolationStats.Mode mode) {
+        String name = "stats-" + mode.name().toLowerCase();
+        measure(name, n, Double.NaN, trials, () -> {
+            PercolationStats stats = new PercolationStats(n, trials, SEED, 1,
+                mode);
+            return Double.doubleToLongBits(stats.mean());
+        });
+    }
+
+    /**
+     * Runs all benchmarks. Takes an optional number of trials per experiment.
+     */
+    public static void main(String[] args) {
+        int trials = 2;
+        if (args.length >= 1) {
+            trials = Integer.parseInt(args[0]);
+        }
+        StdOut.printf("%-14s %6s %8s %16s %8s %12s\n", "benchmark", "n",
+            "density", "ops/s", "+/-", "B/op");
+        for (int n : SIZES) {
+            for (double density : DENSITIES) {
+                benchmarkOpen(n, density);
+                benchmarkIsFull(n, density);
+                benchmarkPercolates(n, density);
+            }
+        }
+        for (int n : EXPERIMENT_SIZES) {
+            benchmarkExperiment(n, trials, PercolationStats.Mode.UNIFORM);
+            benchmarkExperiment(n, trials, PercolationStats.Mode.SHUFFLE);
+        }
+    }
+}
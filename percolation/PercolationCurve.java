@@ -0,0 +1,150 @@
+import java.util.SplittableRandom;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * Estimates the percolation probability curve of an n-by-n grid, that is, the
+ * probability that the system percolates as a function of the number or the
+ * fraction of open sites, using the Newman-Ziff algorithm.
+ * 
+ * @author Yaohui Wu
+ */
+public class PercolationCurve {
+    private int numSites; // Number of sites in the grid.
+    /*
+     * Fraction of trials that percolate with k open sites, for k from 0 to
+     * the number of sites.
+     */
+    private double[] curve;
+
+    /**
+     * Performs trials on an n-by-n grid with random streams derived from the
+     * given seed.
+     */
+    public PercolationCurve(int n, int trials, long seed) {
+        validate(n, trials);
+        numSites = n * n;
+        /*
+         * Percolation is monotone: once the first k sites of a permutation
+         * percolate, so does every longer prefix. Each trial therefore only
+         * needs the critical number of sites k, found with one incremental
+         * union-find pass, and contributes to the curve at every k' >= k.
+         */
+        int[] critical = new int[numSites + 1];
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] sites = new int[numSites];
+        for (int i = 0; i < trials; i += 1) {
+            shuffle(sites, random);
+            critical[criticalSites(n, sites)] += 1;
+        }
+        curve = new double[numSites + 1];
+        int count = 0;
+        for (int k = 0; k <= numSites; k += 1) {
+            count += critical[k];
+            curve[k] = (double) count / trials;
+        }
+    }
+
+    private void validate(int n, int trials) {
+        if (n <= 0 || trials <= 0) {
+            String error = "Invalid grid size " + n + " or number of trials "
+                + trials;
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Fills the array with a random permutation of its indices.
+     */
+    private static void shuffle(int[] sites, SplittableRandom random) {
+        for (int i = 0; i < sites.length; i += 1) {
+            int j = random.nextInt(i + 1);
+            sites[i] = sites[j];
+            sites[j] = i;
+        }
+    }
+
+    /**
+     * Returns the smallest k such that opening the first k sites of the
+     * permutation percolates an n-by-n grid. The sites are flat indices
+     * n * (row - 1) + (col - 1).
+     */
+    public static int criticalSites(int n, int[] sites) {
+        Percolation percolation = new Percolation(n);
+        int k = percolation.openUntilPercolates(sites);
+        if (k == -1) {
+            String error = "Sites are not a permutation of the grid";
+            throw new IllegalArgumentException(error);
+        }
+        return k;
+    }
+
+    /**
+     * Returns the estimated probability that the system percolates with
+     * exactly k open sites.
+     */
+    public double probability(int k) {
+        if (k < 0 || k > numSites) {
+            String error = "Number of open sites " + k + " out of bounds";
+            throw new IllegalArgumentException(error);
+        }
+        return curve[k];
+    }
+
+    /**
+     * Returns the estimated probability that the system percolates when each
+     * site is open independently with probability p.
+     */
+    public double probability(double p) {
+        if (!(p >= 0.0 && p <= 1.0)) {
+            String error = "Probability " + p + " out of bounds";
+            throw new IllegalArgumentException(error);
+        }
+        if (p == 0.0) {
+            return curve[0];
+        }
+        if (p == 1.0) {
+            return curve[numSites];
+        }
+        /*
+         * Average the curve over the binomial distribution of the number of
+         * open sites. The weights are computed relative to the mode, walking
+         * outwards until they become negligible, to avoid underflow.
+         */
+        int mode = (int) Math.min(numSites, Math.floor((numSites + 1) * p));
+        double ratio = p / (1.0 - p);
+        double sum = curve[mode];
+        double total = 1.0;
+        double weight = 1.0;
+        for (int k = mode; k < numSites && weight > 0.0; k += 1) {
+            weight *= ratio * (numSites - k) / (k + 1);
+            sum += weight * curve[k + 1];
+            total += weight;
+        }
+        weight = 1.0;
+        for (int k = mode; k > 0 && weight > 0.0; k -= 1) {
+            weight *= k / (ratio * (numSites - k + 1));
+            sum += weight * curve[k - 1];
+            total += weight;
+        }
+        return sum / total;
+    }
+
+    /**
+     * Takes the grid size n, the number of trials and an optional seed, and
+     * prints the percolation probability for p from 0.50 to 0.70.
+     */
+    public static void main(String[] args) {
+        int n = Integer.parseInt(args[0]);
+        int trials = Integer.parseInt(args[1]);
+        long seed = new SplittableRandom().nextLong();
+        if (args.length >= 3) {
+            seed = Long.parseLong(args[2]);
+        }
+        PercolationCurve curve = new PercolationCurve(n, trials, seed);
+        for (int i = 50; i <= 70; i += 1) {
+            double p = i / 100.0;
+            StdOut.printf("P(%.2f) = %.4f\n", p, curve.probability(p));
+        }
+    }
+}
@@ -1,5 +1,8 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import edu.princeton.cs.algs4.StdOut;
-import edu.princeton.cs.algs4.StdRandom;
 import edu.princeton.cs.algs4.StdStats;
 
 /**
@@ -9,20 +12,117 @@ import edu.princeton.cs.algs4.StdStats;
  * @author Yaohui Wu
  */
 public class PercolationStats {
+    /**
+     * How an experiment chooses the next site to open.
+     */
+    public enum Mode {
+        // Draw sites uniformly at random with replacement.
+        UNIFORM,
+        // Draw sites from a random permutation of the sites.
+        SHUFFLE
+    }
+
+    /**
+     * A single experiment, which opens sites until the system percolates and
+     * returns the fraction of sites that are open.
+     */
+    private interface Experiment {
+        double run(SplittableRandom random);
+    }
+
     private static final double CONFIDENCE_95 = 1.96;
+    // Maximum number of trials run sequentially by a single task.
+    private static final int TRIALS_PER_TASK = 4;
     private int numTrials; // Number of trials.
     private double[] thresholds; // Percolation thresholds.
 
     /**
-     * Performs trials on an n-by-n grid.
+     * Performs trials on an n-by-n grid in parallel using all available
+     * processors.
      */
     public PercolationStats(int n, int trials) {
+        this(n, trials, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Performs trials on an n-by-n grid in parallel using all available
+     * processors, with the random streams derived from the given seed.
+     */
+    public PercolationStats(int n, int trials, long seed) {
+        this(n, trials, seed, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Performs trials on an n-by-n grid in parallel using the given number of
+     * threads. The results depend only on the seed, not on the number of
+     * threads.
+     */
+    public PercolationStats(int n, int trials, long seed, int threads) {
+        this(n, trials, seed, threads, Mode.UNIFORM);
+    }
+
+    /**
+     * Performs trials on an n-by-n grid in parallel using the given number of
+     * threads, choosing the sites to open according to the given mode.
+     */
+    public PercolationStats(int n, int trials, long seed, int threads,
+        Mode mode) {
         validate(n, trials);
+        validateThreads(threads);
+        validateMode(mode);
         numTrials = trials;
         thresholds = new double[numTrials];
-        for (int i = 0; i < trials; i += 1) {
-            double threshold = experiment(n);
-            thresholds[i] = threshold;
+        if (mode == Mode.SHUFFLE) {
+            Lattice lattice = Lattice.square(n);
+            runTrials(random -> shuffleExperiment(lattice, random), seed,
+                threads);
+        } else {
+            runTrials(random -> uniformExperiment(n, random), seed, threads);
+        }
+    }
+
+    /**
+     * Performs trials on the lattice in parallel using the given number of
+     * threads, opening the sites in the order of a random permutation. The
+     * results depend only on the seed, not on the number of threads.
+     */
+    public PercolationStats(Lattice lattice, int trials, long seed,
+        int threads) {
+        validateLattice(lattice);
+        validate(lattice.numberOfSites(), trials);
+        validateThreads(threads);
+        numTrials = trials;
+        thresholds = new double[numTrials];
+        runTrials(random -> shuffleExperiment(lattice, random), seed,
+            threads);
+    }
+
+    /**
+     * Runs the trials of the experiment and stores their thresholds.
+     */
+    private void runTrials(Experiment experiment, long seed, int threads) {
+        /*
+         * Derive one seed per trial up front so that each trial always uses
+         * the same random stream no matter which thread runs it.
+         */
+        long[] seeds = new long[numTrials];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < numTrials; i += 1) {
+            seeds[i] = random.nextLong();
+        }
+        if (threads == 1) {
+            // Run the trials on the calling thread.
+            for (int i = 0; i < numTrials; i += 1) {
+                SplittableRandom trial = new SplittableRandom(seeds[i]);
+                thresholds[i] = experiment.run(trial);
+            }
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new TrialTask(experiment, seeds, 0, numTrials));
+        } finally {
+            pool.shutdown();
         }
     }
 
@@ -34,21 +134,114 @@ public class PercolationStats {
         }
     }
 
+    private void validateThreads(int threads) {
+        if (threads <= 0) {
+            String error = "Invalid number of threads " + threads;
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    private void validateMode(Mode mode) {
+        if (mode == null) {
+            String error = "Mode cannot be null";
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    private void validateLattice(Lattice lattice) {
+        if (lattice == null) {
+            String error = "Lattice cannot be null";
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Runs the trials in the range [lo, hi), splitting the range in half
+     * until it is small enough to run sequentially.
+     */
+    private class TrialTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Experiment experiment;
+        private final long[] seeds;
+        private final int lo;
+        private final int hi;
+
+        public TrialTask(Experiment experiment, long[] seeds, int lo, int hi) {
+            this.experiment = experiment;
+            this.seeds = seeds;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= TRIALS_PER_TASK) {
+                for (int i = lo; i < hi; i += 1) {
+                    SplittableRandom random = new SplittableRandom(seeds[i]);
+                    thresholds[i] = experiment.run(random);
+                }
+                return;
+            }
+            int mid = lo + (hi - lo) / 2;
+            invokeAll(
+                new TrialTask(experiment, seeds, lo, mid),
+                new TrialTask(experiment, seeds, mid, hi)
+            );
+        }
+    }
+
     /**
-     * Performs a single experiment on an n-by-n grid.
+     * Performs a single experiment on an n-by-n grid, opening sites drawn
+     * uniformly at random.
      */
-    private double experiment(int n) {
+    private static double uniformExperiment(int n, SplittableRandom random) {
         Percolation percolation = new Percolation(n);
         // Open sites until percolation.
         while (!percolation.percolates()) {
             // Randomly open a site.
-            int row = StdRandom.uniformInt(1, n + 1);
-            int col = StdRandom.uniformInt(1, n + 1);
+            int row = random.nextInt(1, n + 1);
+            int col = random.nextInt(1, n + 1);
             percolation.open(row, col);
         }
         // Calculate percolation threshold.
         int open = percolation.numberOfOpenSites();
-        double threshold = (double) open / (n * n);
+        double threshold = (double) open / ((double) n * n);
+        return threshold;
+    }
+
+    /**
+     * Performs a single experiment on the lattice, opening the sites in the
+     * order of a random permutation. Every draw opens a new site, so no
+     * random numbers are wasted on sites that are already open, and the
+     * number of open sites at percolation has the same distribution as in
+     * the uniform experiment.
+     */
+    private static double shuffleExperiment(Lattice lattice,
+        SplittableRandom random) {
+        LatticePercolation percolation = new LatticePercolation(lattice);
+        int numSites = lattice.numberOfSites();
+        int[] sites = new int[numSites];
+        for (int i = 0; i < numSites; i += 1) {
+            sites[i] = i;
+        }
+        /*
+         * Fisher-Yates shuffle performed incrementally: the ith site is
+         * chosen just before it is opened, so the shuffle stops as soon as
+         * the system percolates.
+         */
+        int i = 0;
+        while (!percolation.percolates()) {
+            int j = random.nextInt(i, numSites);
+            int site = sites[j];
+            sites[j] = sites[i];
+            sites[i] = site;
+            i += 1;
+            percolation.open(site);
+        }
+        // Calculate percolation threshold.
+        int open = percolation.numberOfOpenSites();
+        double threshold = (double) open / numSites;
         return threshold;
     }
 
@@ -88,10 +281,24 @@ public class PercolationStats {
         return confidence;
     }
 
+    /**
+     * Takes the grid size n and the number of trials, and optionally a seed
+     * and the number of threads.
+     */
     public static void main(String[] args) {
         int n = Integer.parseInt(args[0]);
         int trials = Integer.parseInt(args[1]);
-        PercolationStats stats = new PercolationStats(n, trials);
+        PercolationStats stats;
+        if (args.length >= 4) {
+            long seed = Long.parseLong(args[2]);
+            int threads = Integer.parseInt(args[3]);
+            stats = new PercolationStats(n, trials, seed, threads);
+        } else if (args.length == 3) {
+            long seed = Long.parseLong(args[2]);
+            stats = new PercolationStats(n, trials, seed);
+        } else {
+            stats = new PercolationStats(n, trials);
+        }
         StdOut.printf("%-24s", "mean");
         StdOut.println("= " + stats.mean());
         StdOut.printf("%-24s", "stddev");
@@ -0,0 +1,189 @@
+import java.util.SplittableRandom;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * A percolation system whose rows are given one at a time from top to
+ * bottom. Only the labels of the last row are kept, relabeled after every
+ * row in the style of Hoshen-Kopelman, so the memory is linear in the grid
+ * size instead of quadratic.
+ * 
+ * @author Yaohui Wu
+ */
+public class StreamingPercolation {
+    private int size; // Grid size.
+    private int numRows; // Number of rows added.
+    private long numOpenSites; // Number of open sites.
+    // Label of each site in the last row, or -1 if the site is blocked.
+    private int[] labels;
+    /*
+     * Union-find forest over the labels, where [0, n) are the labels of the
+     * last row and [n, 2n) are the sites of the row being added, and a set is
+     * flagged if it is connected to the top.
+     */
+    private FlaggedUnionFind forest;
+    // New label of each root while relabeling a row, or -1 if unassigned.
+    private int[] relabel;
+    // Root, then top flag, of each site of the row being relabeled.
+    private int[] roots;
+    // True if a site in the last row is connected to the top.
+    private boolean lastRowFull;
+
+    /**
+     * Creates an n-by-n grid whose rows are added one at a time.
+     */
+    public StreamingPercolation(int n) {
+        validateSize(n);
+        size = n;
+        numRows = 0;
+        numOpenSites = 0;
+        labels = new int[size];
+        forest = new FlaggedUnionFind(2 * size);
+        relabel = new int[2 * size];
+        roots = new int[size];
+        for (int i = 0; i < 2 * size; i += 1) {
+            relabel[i] = -1;
+        }
+        lastRowFull = false;
+    }
+
+    private void validateSize(int n) {
+        if (n <= 0) {
+            String error = "Invalid grid size " + n;
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Adds the next row of the grid, where open[col - 1] is true if the site
+     * (row, col) is open.
+     */
+    public void addRow(boolean[] open) {
+        validateRow(open);
+        for (int i = size; i < 2 * size; i += 1) {
+            forest.reset(i, false);
+        }
+        for (int col = 0; col < size; col += 1) {
+            if (!open[col]) {
+                continue;
+            }
+            numOpenSites += 1;
+            int site = size + col;
+            // Sites in the first row are connected to the virtual top site.
+            if (numRows == 0) {
+                forest.reset(site, true);
+            }
+            int root = site;
+            if (col > 0 && open[col - 1]) {
+                root = forest.union(root, forest.find(site - 1)); // Left.
+            }
+            if (numRows > 0 && labels[col] != -1) {
+                forest.union(root, forest.find(labels[col])); // Up.
+            }
+        }
+        relabelRow(open);
+        numRows += 1;
+    }
+
+    private void validateRow(boolean[] open) {
+        if (open == null || open.length != size) {
+            String error = "Row must have length " + size;
+            throw new IllegalArgumentException(error);
+        }
+        if (numRows == size) {
+            String error = "All " + size + " rows have already been added";
+            throw new IllegalStateException(error);
+        }
+    }
+
+    /**
+     * Replaces the labels of the last row with compact labels of the sets of
+     * the row just added, and resets the forest to those labels.
+     */
+    private void relabelRow(boolean[] open) {
+        int numLabels = 0;
+        lastRowFull = false;
+        for (int col = 0; col < size; col += 1) {
+            if (!open[col]) {
+                labels[col] = -1;
+                continue;
+            }
+            int root = forest.find(size + col);
+            if (relabel[root] == -1) {
+                relabel[root] = numLabels;
+                numLabels += 1;
+            }
+            labels[col] = relabel[root];
+            roots[col] = root;
+        }
+        /*
+         * Read the top flag of each set before any entry is overwritten,
+         * since the roots may be labels of the previous row.
+         */
+        for (int col = 0; col < size; col += 1) {
+            if (labels[col] != -1) {
+                int root = roots[col];
+                relabel[root] = -1;
+                roots[col] = forest.isFlagged(root) ? 1 : 0;
+            }
+        }
+        for (int col = 0; col < size; col += 1) {
+            if (labels[col] != -1) {
+                boolean top = roots[col] != 0;
+                forest.reset(labels[col], top);
+                if (top) {
+                    lastRowFull = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of rows added.
+     */
+    public int numberOfRows() {
+        return numRows;
+    }
+
+    /**
+     * Returns the number of open sites.
+     */
+    public long numberOfOpenSites() {
+        return numOpenSites;
+    }
+
+    /**
+     * Returns true if all n rows have been added and the system percolates,
+     * that is, there is a full site in the bottom row.
+     */
+    public boolean percolates() {
+        return numRows == size && lastRowFull;
+    }
+
+    /**
+     * Takes the grid size n, the probability p that a site is open and an
+     * optional seed, and reports whether a random grid percolates.
+     */
+    public static void main(String[] args) {
+        int n = Integer.parseInt(args[0]);
+        double p = Double.parseDouble(args[1]);
+        SplittableRandom random = new SplittableRandom();
+        if (args.length >= 3) {
+            random = new SplittableRandom(Long.parseLong(args[2]));
+        }
+        StreamingPercolation percolation = new StreamingPercolation(n);
+        boolean[] row = new boolean[n];
+        for (int i = 0; i < n; i += 1) {
+            for (int j = 0; j < n; j += 1) {
+                row[j] = random.nextDouble() < p;
+            }
+            percolation.addRow(row);
+        }
+        StdOut.println(percolation.numberOfOpenSites() + " open sites");
+        if (percolation.percolates()) {
+            StdOut.println("percolates");
+        } else {
+            StdOut.println("does not percolate");
+        }
+    }
+}
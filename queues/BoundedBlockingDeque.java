@@ -0,0 +1,340 @@
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementation of a thread-safe deque with a fixed capacity, for passing
+ * items between the stages of a pipeline. Adding to a full deque blocks
+ * until there is room and removing from an empty deque blocks until there is
+ * an item, so a slow consumer slows down its producers instead of letting
+ * the deque grow without bound.
+ * <p>
+ * The items are kept in a ResizingArrayDeque guarded by a single lock.
+ * Producers wait on one condition and consumers on another, so adding an
+ * item wakes at most one consumer and removing an item wakes at most one
+ * producer.
+ * 
+ * @author Yaohui Wu
+ */
+public class BoundedBlockingDeque<Item> {
+    private final int capacity; // Maximum number of items.
+    private final ResizingArrayDeque<Item> deque; // Guarded by the lock.
+    private final ReentrantLock lock;
+    private final Condition notEmpty; // Signaled when an item is added.
+    private final Condition notFull; // Signaled when an item is removed.
+
+    /**
+     * Constructs an empty deque that holds at most the given number of items.
+     */
+    public BoundedBlockingDeque(int capacity) {
+        validateCapacity(capacity);
+        this.capacity = capacity;
+        deque = new ResizingArrayDeque<>();
+        lock = new ReentrantLock();
+        notEmpty = lock.newCondition();
+        notFull = lock.newCondition();
+    }
+
+    private void validateCapacity(int capacity) {
+        if (capacity <= 0) {
+            String error = "Invalid capacity " + capacity;
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Returns the maximum number of items in the deque.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of items in the deque.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return deque.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks if the deque is empty.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the number of items that can be added without blocking.
+     */
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    /**
+     * Adds the item to the front, waiting for room if the deque is full.
+     */
+    public void putFirst(Item item) throws InterruptedException {
+        validateItem(item);
+        lock.lockInterruptibly();
+        try {
+            while (deque.size() == capacity) {
+                notFull.await();
+            }
+            deque.addFirst(item);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the item to the back, waiting for room if the deque is full.
+     */
+    public void putLast(Item item) throws InterruptedException {
+        validateItem(item);
+        lock.lockInterruptibly();
+        try {
+            while (deque.size() == capacity) {
+                notFull.await();
+            }
+            deque.addLast(item);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the item to the front, waiting up to the given time for room.
+     * Returns false if the deque was still full when the time ran out.
+     */
+    public boolean offerFirst(Item item, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        validateItem(item);
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (deque.size() == capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            deque.addFirst(item);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the item to the back, waiting up to the given time for room.
+     * Returns false if the deque was still full when the time ran out.
+     */
+    public boolean offerLast(Item item, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        validateItem(item);
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (deque.size() == capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            deque.addLast(item);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void validateItem(Item item) {
+        if (item == null) {
+            String error = "Item cannot be null";
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Removes and returns the item at the front, waiting for an item if the
+     * deque is empty.
+     */
+    public Item takeFirst() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (deque.isEmpty()) {
+                notEmpty.await();
+            }
+            Item item = deque.removeFirst();
+            notFull.signal();
+            return item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns the item at the back, waiting for an item if the
+     * deque is empty.
+     */
+    public Item takeLast() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (deque.isEmpty()) {
+                notEmpty.await();
+            }
+            Item item = deque.removeLast();
+            notFull.signal();
+            return item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns the item at the front, waiting up to the given
+     * time for an item. Returns null if the deque was still empty when the
+     * time ran out.
+     */
+    public Item pollFirst(long timeout, TimeUnit unit)
+        throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (deque.isEmpty()) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            Item item = deque.removeFirst();
+            notFull.signal();
+            return item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns the item at the back, waiting up to the given time
+     * for an item. Returns null if the deque was still empty when the time
+     * ran out.
+     */
+    public Item pollLast(long timeout, TimeUnit unit)
+        throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (deque.isEmpty()) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            Item item = deque.removeLast();
+            notFull.signal();
+            return item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes at most max items from the front, without waiting, and adds
+     * them to the collection in order. Returns the number of items removed.
+     */
+    public int drainTo(Collection<? super Item> collection, int max) {
+        lock.lock();
+        try {
+            int count = deque.drainTo(collection, max);
+            // Every freed slot may let a waiting producer proceed.
+            for (int i = 0; i < count; i += 1) {
+                notFull.signal();
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stress test: producers add to both ends and consumers take from both
+     * ends of a small deque, and every item must be taken exactly once.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int numThreads = 4;
+        int perThread = 250000;
+        if (args.length >= 1) {
+            numThreads = Integer.parseInt(args[0]);
+        }
+        BoundedBlockingDeque<Integer> deque = new BoundedBlockingDeque<>(16);
+        int n = numThreads * perThread;
+        int[][] taken = new int[numThreads][];
+        Thread[] threads = new Thread[2 * numThreads];
+        for (int i = 0; i < numThreads; i += 1) {
+            int first = i * perThread;
+            int consumer = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    for (int j = 0; j < perThread; j += 1) {
+                        if (j % 2 == 0) {
+                            deque.putFirst(first + j);
+                        } else {
+                            deque.putLast(first + j);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads[numThreads + i] = new Thread(() -> {
+                int[] items = new int[perThread];
+                try {
+                    for (int j = 0; j < perThread; j += 1) {
+                        if (j % 2 == 0) {
+                            items[j] = deque.takeFirst();
+                        } else {
+                            items[j] = deque.takeLast();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                taken[consumer] = items;
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        int[] counts = new int[n];
+        for (int[] items : taken) {
+            for (int item : items) {
+                counts[item] += 1;
+            }
+        }
+        int errors = 0;
+        for (int i = 0; i < n; i += 1) {
+            if (counts[i] != 1) {
+                errors += 1;
+            }
+        }
+        System.out.println("Items: " + n + ", threads: " + 2 * numThreads);
+        System.out.println("Items not taken exactly once: " + errors);
+        System.out.println("Is deque empty? " + deque.isEmpty());
+        System.out.println("Poll with timeout on empty deque: "
+            + deque.pollLast(10, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,229 @@
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementation of a thread-safe randomized queue with a fixed capacity.
+ * Enqueueing to a full queue blocks until there is room and dequeueing from
+ * an empty queue blocks until there is an item, which removes an item chosen
+ * uniformly at random.
+ * <p>
+ * The items are kept in a RandomizedQueue guarded by a single lock, with
+ * separate conditions for producers and consumers as in BoundedBlockingDeque.
+ * 
+ * @author Yaohui Wu
+ */
+public class BoundedBlockingRandomizedQueue<Item> {
+    private final int capacity; // Maximum number of items.
+    private final RandomizedQueue<Item> queue; // Guarded by the lock.
+    private final ReentrantLock lock;
+    private final Condition notEmpty; // Signaled when an item is added.
+    private final Condition notFull; // Signaled when an item is removed.
+
+    /**
+     * Constructs an empty queue that holds at most the given number of
+     * items.
+     */
+    public BoundedBlockingRandomizedQueue(int capacity) {
+        validateCapacity(capacity);
+        this.capacity = capacity;
+        queue = new RandomizedQueue<>();
+        lock = new ReentrantLock();
+        notEmpty = lock.newCondition();
+        notFull = lock.newCondition();
+    }
+
+    private void validateCapacity(int capacity) {
+        if (capacity <= 0) {
+            String error = "Invalid capacity " + capacity;
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Returns the maximum number of items in the queue.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of items in the queue.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks if the queue is empty.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the number of items that can be added without blocking.
+     */
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    /**
+     * Adds the item, waiting for room if the queue is full.
+     */
+    public void put(Item item) throws InterruptedException {
+        validateItem(item);
+        lock.lockInterruptibly();
+        try {
+            while (queue.size() == capacity) {
+                notFull.await();
+            }
+            queue.enqueue(item);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the item, waiting up to the given time for room. Returns false if
+     * the queue was still full when the time ran out.
+     */
+    public boolean offer(Item item, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        validateItem(item);
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (queue.size() == capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            queue.enqueue(item);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void validateItem(Item item) {
+        if (item == null) {
+            String error = "Item cannot be null";
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Removes and returns a random item, waiting for an item if the queue is
+     * empty.
+     */
+    public Item take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (queue.isEmpty()) {
+                notEmpty.await();
+            }
+            Item item = queue.dequeue();
+            notFull.signal();
+            return item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns a random item, waiting up to the given time for an
+     * item. Returns null if the queue was still empty when the time ran out.
+     */
+    public Item poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (queue.isEmpty()) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            Item item = queue.dequeue();
+            notFull.signal();
+            return item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes at most max random items, without waiting, and adds them to
+     * the collection. Returns the number of items removed.
+     */
+    public int drainTo(Collection<? super Item> collection, int max) {
+        lock.lock();
+        try {
+            int count = queue.drainTo(collection, max);
+            // Every freed slot may let a waiting producer proceed.
+            for (int i = 0; i < count; i += 1) {
+                notFull.signal();
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stress test: a producer fills a small queue faster than a consumer
+     * empties it, and every item must be taken exactly once.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int n = 1000000;
+        BoundedBlockingRandomizedQueue<Integer> queue =
+            new BoundedBlockingRandomizedQueue<>(64);
+        int[] counts = new int[n];
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < n; i += 1) {
+                    queue.put(i);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        int maxSize = 0;
+        for (int i = 0; i < n; i += 1) {
+            maxSize = Math.max(maxSize, queue.size());
+            counts[queue.take()] += 1;
+        }
+        producer.join();
+        int errors = 0;
+        for (int i = 0; i < n; i += 1) {
+            if (counts[i] != 1) {
+                errors += 1;
+            }
+        }
+        System.out.println("Items not taken exactly once: " + errors);
+        System.out.println("Largest size seen: " + maxSize + " of "
+            + queue.capacity());
+        System.out.println("Offer with timeout on full queue: "
+            + fillAndOffer(queue));
+    }
+
+    private static boolean fillAndOffer(
+        BoundedBlockingRandomizedQueue<Integer> queue)
+        throws InterruptedException {
+        while (queue.remainingCapacity() > 0) {
+            queue.put(0);
+        }
+        return queue.offer(1, 10, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,382 @@
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementation of a thread-safe randomized queue. The items are striped
+ * across segments, each a resizable array with its own lock, and each thread
+ * adds items to its own home segment, so threads rarely contend.
+ * <p>
+ * To remove or sample an item, each thread keeps its own snapshot of the
+ * segment sizes, padded to leave room for growth, and views the segments as
+ * one array of that many slots. A slot is chosen uniformly at random, from
+ * a SplittableRandom that the thread split from the queue's on first use,
+ * and the choice is retried until the slot holds an item, so every item is
+ * chosen with the same probability without reading the size of every
+ * segment. The snapshot is taken again when a segment turns out to have
+ * outgrown it or after one miss per segment. With n items in S segments, a
+ * snapshot has at most 1.25 n + S slots, so a choice takes O(1 + S / n)
+ * expected tries: close to 1 for a large queue, but up to S for a queue
+ * with a single item. When other threads change the queue, the
+ * probability of an item may be off by the fraction of items added or
+ * removed since the snapshot. When no other thread changes the queue, every
+ * item is chosen with probability exactly 1 / n.
+ * 
+ * @author Yaohui Wu
+ */
+public class ConcurrentRandomizedQueue<Item> {
+    private final Segment[] segments;
+    // Source of home segments, assigned round-robin to threads.
+    private final AtomicInteger nextSegment;
+    // Source of the random streams of the threads, guarded by its lock.
+    private final SplittableRandom random;
+    private final ThreadLocal<Snapshot> snapshots;
+    private final LongAdder count; // Number of items in the queue.
+
+    /**
+     * Constructs an empty queue with one segment per available processor.
+     */
+    public ConcurrentRandomizedQueue() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs an empty queue with the given number of segments.
+     */
+    public ConcurrentRandomizedQueue(int numSegments) {
+        validateSegments(numSegments);
+        segments = new Segment[numSegments];
+        for (int i = 0; i < numSegments; i += 1) {
+            segments[i] = new Segment();
+        }
+        nextSegment = new AtomicInteger(0);
+        random = new SplittableRandom();
+        snapshots = ThreadLocal.withInitial(() -> new Snapshot(
+            Math.floorMod(nextSegment.getAndIncrement(), numSegments),
+            numSegments, split()
+        ));
+        count = new LongAdder();
+    }
+
+    /**
+     * Returns a new random stream for a thread. SplittableRandom is not
+     * thread-safe, so the threads split it under its lock.
+     */
+    private SplittableRandom split() {
+        synchronized (random) {
+            return random.split();
+        }
+    }
+
+    private void validateSegments(int numSegments) {
+        if (numSegments <= 0) {
+            String error = "Invalid number of segments " + numSegments;
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Checks if the queue is empty.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the number of items in the queue. The answer may be stale as
+     * soon as it is returned if other threads are using the queue.
+     */
+    public int size() {
+        return (int) Math.max(count.sum(), 0);
+    }
+
+    /**
+     * Adds an item to the home segment of the calling thread.
+     */
+    public void enqueue(Item item) {
+        validateEnqueue(item);
+        Segment segment = segments[snapshots.get().home];
+        segment.lock.lock();
+        try {
+            segment.enqueue(item);
+        } finally {
+            segment.lock.unlock();
+        }
+        count.increment();
+    }
+
+    private void validateEnqueue(Item item) {
+        if (item == null) {
+            String error = "Item cannot be null";
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Removes and returns a random item from the queue.
+     */
+    public Item dequeue() {
+        Item item = choose(true);
+        count.decrement();
+        return item;
+    }
+
+    /**
+     * Returns a random item from the queue but does not remove it.
+     */
+    public Item sample() {
+        return choose(false);
+    }
+
+    /**
+     * Returns an item chosen uniformly at random, removing it if asked to.
+     */
+    private Item choose(boolean remove) {
+        Snapshot snapshot = snapshots.get();
+        // The calling thread may have added items since the snapshot.
+        if (segments[snapshot.home].size > snapshot.slots(snapshot.home)) {
+            take(snapshot);
+        }
+        int misses = 0;
+        while (true) {
+            long slot = snapshot.random.nextLong(snapshot.total());
+            int i = snapshot.segmentOf(slot);
+            int index = (int) (slot - snapshot.start(i));
+            Segment segment = segments[i];
+            int size = segment.size;
+            /*
+             * Items past the slots of a segment that outgrew the snapshot
+             * could never be chosen, so take it again.
+             */
+            if (size > snapshot.slots(i)) {
+                take(snapshot);
+                misses = 0;
+                continue;
+            }
+            // Lock the segment only if the slot seems to hold an item.
+            if (index < size) {
+                segment.lock.lock();
+                try {
+                    // Check again, since the segment may have shrunk.
+                    if (index < segment.size) {
+                        // The segments hold only items given to enqueue().
+                        @SuppressWarnings("unchecked")
+                        Item item = (Item) (remove ? segment.dequeue(index)
+                            : segment.sample(index));
+                        return item;
+                    }
+                } finally {
+                    segment.lock.unlock();
+                }
+            }
+            misses += 1;
+            if (misses >= segments.length) {
+                take(snapshot);
+                misses = 0;
+            }
+        }
+    }
+
+    /**
+     * Takes the snapshot of the segment sizes again, or throws if the queue
+     * was empty at some point during the call. Emptiness is confirmed by
+     * reading the versions of the segments again: if none has changed, the
+     * segments were all empty at once.
+     */
+    private void take(Snapshot snapshot) {
+        while (true) {
+            long versions = 0;
+            long total = 0;
+            for (int i = 0; i < segments.length; i += 1) {
+                versions += segments[i].version;
+                int size = segments[i].size;
+                snapshot.set(i, size);
+                total += size;
+            }
+            if (total > 0) {
+                return;
+            }
+            for (Segment segment : segments) {
+                versions -= segment.version;
+            }
+            if (versions == 0) {
+                String error = "Queue is empty";
+                throw new NoSuchElementException(error);
+            }
+        }
+    }
+
+    /**
+     * A thread's home segment, its random stream and its snapshot of the
+     * segment sizes, as the number of slots of each segment. The segments
+     * are laid end to end, so that slot s is in the first segment i with
+     * s < ends[i].
+     */
+    private static class Snapshot {
+        private final int home;
+        private final SplittableRandom random;
+        private final long[] ends;
+
+        public Snapshot(int home, int numSegments, SplittableRandom random) {
+            this.home = home;
+            this.random = random;
+            ends = new long[numSegments];
+            for (int i = 0; i < numSegments; i += 1) {
+                ends[i] = i + 1;
+            }
+        }
+
+        public long total() {
+            return ends[ends.length - 1];
+        }
+
+        public long start(int i) {
+            return i == 0 ? 0 : ends[i - 1];
+        }
+
+        public long slots(int i) {
+            return ends[i] - start(i);
+        }
+
+        /**
+         * Sets the number of slots of segment i from its size, with room to
+         * grow by a quarter, and at least one slot so that every segment can
+         * be chosen. Called for the segments in order.
+         */
+        public void set(int i, int size) {
+            ends[i] = start(i) + size + size / 4 + 1;
+        }
+
+        /**
+         * Returns the segment that the slot is in, by binary search.
+         */
+        public int segmentOf(long slot) {
+            int lo = 0;
+            int hi = ends.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (slot < ends[mid]) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            return lo;
+        }
+    }
+
+    /**
+     * A segment of the queue: a resizable array guarded by its own lock.
+     */
+    private static class Segment {
+        private static final int INITIAL_CAPACITY = 10;
+        private static final int RESIZE_FACTOR = 2;
+        private static final int SHRINK_FACTOR = 4;
+        private final ReentrantLock lock;
+        private Object[] items;
+        /*
+         * Written only under the lock, read without it to choose a slot. The
+         * version is bumped before every change of the size.
+         */
+        private volatile int size;
+        private volatile long version;
+
+        public Segment() {
+            lock = new ReentrantLock();
+            items = new Object[INITIAL_CAPACITY];
+            size = 0;
+            version = 0;
+        }
+
+        public void enqueue(Object item) {
+            // Expand the segment if it is full.
+            if (size == items.length) {
+                resize(items.length * RESIZE_FACTOR);
+            }
+            items[size] = item;
+            version += 1;
+            size += 1;
+        }
+
+        public Object dequeue(int index) {
+            Object item = items[index];
+            // Swap the item to be removed with the last item.
+            items[index] = items[size - 1];
+            // Set the item to be removed to null to avoid loitering.
+            items[size - 1] = null;
+            version += 1;
+            size -= 1;
+            // Shrink the segment if it is one-quarter full.
+            if (size > 0 && size == items.length / SHRINK_FACTOR) {
+                resize(items.length / RESIZE_FACTOR);
+            }
+            return item;
+        }
+
+        public Object sample(int index) {
+            return items[index];
+        }
+
+        private void resize(int newCapacity) {
+            if (newCapacity >= INITIAL_CAPACITY) {
+                Object[] newItems = new Object[newCapacity];
+                System.arraycopy(items, 0, newItems, 0, size);
+                items = newItems;
+            }
+        }
+    }
+
+    /**
+     * Stress test: producers and consumers share the queue, and every item
+     * must be dequeued exactly once.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int numThreads = 4;
+        int perThread = 250000;
+        if (args.length >= 1) {
+            numThreads = Integer.parseInt(args[0]);
+        }
+        ConcurrentRandomizedQueue<Integer> queue =
+            new ConcurrentRandomizedQueue<>();
+        int n = numThreads * perThread;
+        AtomicIntegerArray taken = new AtomicIntegerArray(n);
+        AtomicInteger remaining = new AtomicInteger(n);
+        Thread[] threads = new Thread[2 * numThreads];
+        for (int i = 0; i < numThreads; i += 1) {
+            int first = i * perThread;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < perThread; j += 1) {
+                    queue.enqueue(first + j);
+                }
+            });
+            threads[numThreads + i] = new Thread(() -> {
+                while (remaining.get() > 0) {
+                    try {
+                        taken.incrementAndGet(queue.dequeue());
+                        remaining.decrementAndGet();
+                    } catch (NoSuchElementException e) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        int errors = 0;
+        for (int i = 0; i < n; i += 1) {
+            if (taken.get(i) != 1) {
+                errors += 1;
+            }
+        }
+        System.out.println("Items: " + n + ", threads: " + 2 * numThreads);
+        System.out.println("Items not dequeued exactly once: " + errors);
+        System.out.println("Is queue empty? " + queue.isEmpty());
+    }
+}
@@ -1,3 +1,5 @@
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -11,6 +13,7 @@ public class Deque<Item> implements Iterable<Item> {
     // Sentinel node of the doubly linked list to track the front and back.
     private Node sentinel;
     private int size; // Number of items in the deque.
+    private QueueStats stats; // Statistics, or null if not instrumented.
 
     /**
      * Constructs an empty deque with a sentinel node.
@@ -36,17 +39,63 @@ public class Deque<Item> implements Iterable<Item> {
         return size;
     }
 
+    /**
+     * Records the operations of the deque into the statistics from now on,
+     * or stops recording if the statistics are null. The deque allocates a
+     * node per item instead of resizing an array, so it records no resizes.
+     */
+    public void setStats(QueueStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Returns the statistics of the deque, or null if not instrumented.
+     */
+    public QueueStats stats() {
+        return stats;
+    }
+
+    /**
+     * Returns the current time if the deque is instrumented.
+     */
+    private long startTimer() {
+        if (stats == null) {
+            return 0;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Records that count items were added since the start time.
+     */
+    private void recordAdd(int count, long start) {
+        if (stats != null) {
+            stats.recordAdd(count, size, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records that count items were removed since the start time.
+     */
+    private void recordRemove(int count, long start) {
+        if (stats != null) {
+            stats.recordRemove(count, System.nanoTime() - start);
+        }
+    }
+
     /**
      * Adds an item to the front of the deque.
      */
     public void addFirst(Item item) {
         validateItem(item);
+        long start = startTimer();
         // Create a new node and insert it after the sentinel node.
         Node first = new Node(item, sentinel.next, sentinel);
         // Update the references of the sentinel node and the first node.
         sentinel.next.prev = first;
         sentinel.next = first;
         size += 1;
+        recordAdd(1, start);
     }
 
     /**
@@ -54,12 +103,108 @@ public class Deque<Item> implements Iterable<Item> {
      */
     public void addLast(Item item) {
         validateItem(item);
+        long start = startTimer();
         // Create a new node and insert it before the sentinel node.
         Node last = new Node(item, sentinel, sentinel.prev);
         // Update the references of the sentinel node and the last node.
         sentinel.prev.next = last;
         sentinel.prev = last;
         size += 1;
+        recordAdd(1, start);
+    }
+
+    /**
+     * Adds the items to the front of the deque, keeping their order, so that
+     * the first item becomes the front of the deque.
+     */
+    public void addAllFirst(Item[] items) {
+        validateItems(items);
+        addAllFirst(Arrays.asList(items));
+    }
+
+    /**
+     * Adds the items to the front of the deque, keeping their order, so that
+     * the first item becomes the front of the deque.
+     */
+    public void addAllFirst(Iterable<Item> items) {
+        validateItems(items);
+        long start = startTimer();
+        int oldSize = size;
+        Node first = chain(items);
+        if (first == null) {
+            return;
+        }
+        // Splice the chain in after the sentinel node.
+        Node last = first.prev;
+        last.next = sentinel.next;
+        sentinel.next.prev = last;
+        first.prev = sentinel;
+        sentinel.next = first;
+        recordAdd(size - oldSize, start);
+    }
+
+    /**
+     * Adds the items to the back of the deque, keeping their order, so that
+     * the last item becomes the back of the deque.
+     */
+    public void addAllLast(Item[] items) {
+        validateItems(items);
+        addAllLast(Arrays.asList(items));
+    }
+
+    /**
+     * Adds the items to the back of the deque, keeping their order, so that
+     * the last item becomes the back of the deque.
+     */
+    public void addAllLast(Iterable<Item> items) {
+        validateItems(items);
+        long start = startTimer();
+        int oldSize = size;
+        Node first = chain(items);
+        if (first == null) {
+            return;
+        }
+        // Splice the chain in before the sentinel node.
+        Node last = first.prev;
+        first.prev = sentinel.prev;
+        sentinel.prev.next = first;
+        last.next = sentinel;
+        sentinel.prev = last;
+        recordAdd(size - oldSize, start);
+    }
+
+    /**
+     * Links the items into a chain of new nodes, validating every item
+     * before the deque is changed, and returns the first node, whose previous
+     * node is the last node, or null if there are no items.
+     */
+    private Node chain(Iterable<Item> items) {
+        Node first = null;
+        Node last = null;
+        int count = 0;
+        for (Item item : items) {
+            validateItem(item);
+            Node node = new Node(item, null, last);
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+            count += 1;
+        }
+        if (first != null) {
+            first.prev = last;
+            size += count;
+        }
+        return first;
+    }
+
+    private void validateItems(Object items) {
+        if (items == null) {
+            String error = "Items cannot be null";
+            throw new IllegalArgumentException(error);
+        }
     }
 
     private void validateItem(Item item) {
@@ -74,11 +219,13 @@ public class Deque<Item> implements Iterable<Item> {
      */
     public Item removeFirst() {
         validateDeque();
+        long start = startTimer();
         Item item = sentinel.next.item;
         // Update the references of the sentinel node and the first node.
         sentinel.next = sentinel.next.next;
         sentinel.next.prev = sentinel;
         size -= 1;
+        recordRemove(1, start);
         return item;
     }
 
@@ -87,14 +234,45 @@ public class Deque<Item> implements Iterable<Item> {
      */
     public Item removeLast() {
         validateDeque();
+        long start = startTimer();
         Item item = sentinel.prev.item;
         // Update the references of the sentinel node and the last node.
         sentinel.prev = sentinel.prev.prev;
         sentinel.prev.next = sentinel;
         size -= 1;
+        recordRemove(1, start);
         return item;
     }
 
+    /**
+     * Removes at most max items from the front of the deque, adds them to
+     * the collection in order, and returns the number of items removed.
+     */
+    public int drainTo(Collection<? super Item> collection, int max) {
+        validateDrain(collection, max);
+        long start = startTimer();
+        Node curr = sentinel.next;
+        int count = 0;
+        while (count < max && curr != sentinel) {
+            collection.add(curr.item);
+            curr = curr.next;
+            count += 1;
+        }
+        // Unlink the drained nodes all at once.
+        sentinel.next = curr;
+        curr.prev = sentinel;
+        size -= count;
+        recordRemove(count, start);
+        return count;
+    }
+
+    private void validateDrain(Collection<? super Item> collection, int max) {
+        if (collection == null || max < 0) {
+            String error = "Invalid collection or maximum " + max;
+            throw new IllegalArgumentException(error);
+        }
+    }
+
     private void validateDeque() {
         if (isEmpty()) {
             String error = "Deque is empty";
@@ -0,0 +1,228 @@
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * Implementation of a double-ended queue (deque) of int values using a
+ * circular resizing array, without boxing the values.
+ * 
+ * @author Yaohui Wu
+ */
+public class IntDeque {
+    // Capacities are powers of 2 so that indices wrap around with a mask.
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int RESIZE_FACTOR = 2;
+    private static final int SHRINK_FACTOR = 4;
+    private int[] items;
+    private int head; // Index of the item at the front of the deque.
+    private int size; // Number of items in the deque.
+    // Number of changes to the deque, used to detect stale cursors.
+    private int modCount;
+
+    /**
+     * Constructs an empty deque.
+     */
+    public IntDeque() {
+        items = new int[INITIAL_CAPACITY];
+        head = 0;
+        size = 0;
+        modCount = 0;
+    }
+
+    /**
+     * Checks if the deque is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of items in the deque.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the index in the array of the ith item from the front.
+     */
+    private int index(int i) {
+        return (head + i) & (items.length - 1);
+    }
+
+    /**
+     * Adds an item to the front of the deque.
+     */
+    public void addFirst(int item) {
+        // Expand the deque if it is full.
+        if (size == items.length) {
+            resize(items.length * RESIZE_FACTOR);
+        }
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        size += 1;
+        modCount += 1;
+    }
+
+    /**
+     * Adds an item to the back of the deque.
+     */
+    public void addLast(int item) {
+        // Expand the deque if it is full.
+        if (size == items.length) {
+            resize(items.length * RESIZE_FACTOR);
+        }
+        items[index(size)] = item;
+        size += 1;
+        modCount += 1;
+    }
+
+    /**
+     * Removes and returns the item from the front of the deque.
+     */
+    public int removeFirst() {
+        validateDeque();
+        int item = items[head];
+        head = (head + 1) & (items.length - 1);
+        size -= 1;
+        modCount += 1;
+        shrink();
+        return item;
+    }
+
+    /**
+     * Removes and returns the item from the back of the deque.
+     */
+    public int removeLast() {
+        validateDeque();
+        int item = items[index(size - 1)];
+        size -= 1;
+        modCount += 1;
+        shrink();
+        return item;
+    }
+
+    private void validateDeque() {
+        if (isEmpty()) {
+            String error = "Deque is empty";
+            throw new NoSuchElementException(error);
+        }
+    }
+
+    /**
+     * Returns the ith item from the front of the deque, starting at 0.
+     */
+    public int get(int i) {
+        if (i < 0 || i >= size) {
+            String error = "Index " + i + " out of bounds";
+            throw new IndexOutOfBoundsException(error);
+        }
+        return items[index(i)];
+    }
+
+    /**
+     * Shrinks the deque if it is one-quarter full.
+     */
+    private void shrink() {
+        if (size > 0 && size == items.length / SHRINK_FACTOR) {
+            resize(items.length / RESIZE_FACTOR);
+        }
+    }
+
+    /**
+     * Resizes the deque to the new capacity, moving the front item to the
+     * start of the new array.
+     */
+    private void resize(int newCapacity) {
+        if (newCapacity < INITIAL_CAPACITY) {
+            return;
+        }
+        int[] newItems = new int[newCapacity];
+        // Copy the items in at most two runs, before and after wrapping.
+        int firstRun = Math.min(size, items.length - head);
+        System.arraycopy(items, head, newItems, 0, firstRun);
+        System.arraycopy(items, 0, newItems, firstRun, size - firstRun);
+        items = newItems;
+        head = 0;
+    }
+
+    /**
+     * Returns a cursor over the items in the deque from front to back. A
+     * cursor can be reset and reused, so iterating allocates nothing.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * A reusable cursor over the items of the deque from front to back.
+     */
+    public class Cursor {
+        private int i; // Position of the next item from the front.
+        private int expectedModCount;
+
+        private Cursor() {
+            reset();
+        }
+
+        /**
+         * Moves the cursor back to the front of the deque.
+         */
+        public void reset() {
+            i = 0;
+            expectedModCount = modCount;
+        }
+
+        public boolean hasNext() {
+            return i < size;
+        }
+
+        public int next() {
+            validateNext();
+            int item = items[index(i)];
+            i += 1;
+            return item;
+        }
+
+        private void validateNext() {
+            if (expectedModCount != modCount) {
+                String error = "Deque was modified during iteration";
+                throw new ConcurrentModificationException(error);
+            }
+            if (!hasNext()) {
+                String error = "No more items to iterate";
+                throw new NoSuchElementException(error);
+            }
+        }
+    }
+
+    /**
+     * Unit tests for the IntDeque data structure.
+     */
+    public static void main(String[] args) {
+        IntDeque deque = new IntDeque();
+        System.out.println("Is deque empty? " + deque.isEmpty());
+        System.out.println("Size of deque: " + deque.size());
+        deque.addFirst(1);
+        deque.addFirst(2);
+        deque.addLast(3);
+        deque.addLast(4);
+        System.out.println("Is deque empty? " + deque.isEmpty());
+        System.out.println("Size of deque: " + deque.size());
+        System.out.println("Items in deque from front to back:");
+        IntDeque.Cursor cursor = deque.cursor();
+        while (cursor.hasNext()) {
+            System.out.println(cursor.next());
+        }
+        System.out.println("Remove first item: " + deque.removeFirst());
+        System.out.println("Remove last item: " + deque.removeLast());
+        System.out.println("Items in deque from front to back:");
+        cursor.reset();
+        while (cursor.hasNext()) {
+            System.out.println(cursor.next());
+        }
+        System.out.println("Remove first item: " + deque.removeFirst());
+        System.out.println("Remove last item: " + deque.removeLast());
+        System.out.println("Is deque empty? " + deque.isEmpty());
+        System.out.println("Size of deque: " + deque.size());
+    }
+}
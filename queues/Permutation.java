@@ -1,51 +1,49 @@
-import edu.princeton.cs.algs4.StdIn;
 import edu.princeton.cs.algs4.StdOut;
-import edu.princeton.cs.algs4.StdRandom;
 
 /**
  * Takes an integer K, reads a sequence of N strings, and prints exactly K of
  * them, uniformly at random. Assume that 0 <= K <= N and note that N is not
- * given.
+ * given. The strings are read from the file named by the optional second
+ * argument, or from standard input.
  * 
  * @author Yaohui Wu
  */
 public class Permutation {
     public static void main(String[] args) {
         int k = Integer.parseInt(args[0]);
-        // Use one RandomizedQueue object of maximum size at most K.
-        RandomizedQueue<String> permutation = new RandomizedQueue<>();
-        // Enqueue the first K strings.
-        for (int i = 0; i < k; i++) {
-            String item = StdIn.readString();
-            permutation.enqueue(item);
+        /*
+         * Keep a uniform sample of K strings in a reservoir, which skips
+         * ahead to the next string that enters the sample, so the strings in
+         * between are never decoded and only O(K log(N / K)) random numbers
+         * are drawn.
+         */
+        ReservoirSampler<String> sampler = new ReservoirSampler<>(k);
+        // Read the strings from a file, or from standard input.
+        String filename = null;
+        if (args.length >= 2) {
+            filename = args[1];
         }
-        int m = k;
-        while (!StdIn.isEmpty()) {
-            String item = StdIn.readString();
-            m += 1;
-            /*
-             * Keep the new string with probability K / M where M is the
-             * number of strings read so far.
-             */
-            int j = StdRandom.uniformInt(m);
-            if (j < k) {
-                /*
-                 * Dequeue an old string in the RandomizedQueue uniformly at
-                 * random with probality 1 / K.
-                 */
-                permutation.dequeue();
-                // Enqueue the new string.
-                permutation.enqueue(item);
+        try (TokenReader in = TokenReader.open(filename)) {
+            while (in.hasNext()) {
+                if (sampler.acceptsNext()) {
+                    sampler.offer(in.next());
+                } else {
+                    in.skip();
+                    sampler.skip();
+                }
             }
-            /*
-             * At any time, the probability of enqueuing a new string in the
-             * RandomizedQueue after reading the first K strings is
-             * (K / M) * (1 / K) = 1 / M, which follows a uniform distribution.
-             */
+        }
+        /*
+         * The reservoir is in no particular order, so use one RandomizedQueue
+         * object of maximum size at most K to print the sample in random
+         * order.
+         */
+        RandomizedQueue<String> permutation = new RandomizedQueue<>();
+        for (String item : sampler.sample()) {
+            permutation.enqueue(item);
         }
         for (String item : permutation) {
             StdOut.println(item);
         }
     }
- }
- 
\ No newline at end of file
+}
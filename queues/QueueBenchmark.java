@@ -0,0 +1,530 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * Benchmarks the queue data structures, reporting the throughput and the
+ * bytes allocated per operation of each benchmark after a warm-up.
+ * 
+ * @author Yaohui Wu
+ */
+public class QueueBenchmark {
+    private static final int[] SIZES = {1000, 100000, 1000000};
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32};
+    private static final int[] RANDOMIZED_THREADS = {1, 2, 4, 8, 16};
+    private static final int OPS_PER_THREAD = 500000;
+    private static final int CONCURRENT_ITEMS = 2000000;
+    private static final int[] PIPELINE_THREADS = {1, 2, 4};
+    private static final int PIPELINE_ITEMS = 1000000;
+    private static final int PIPELINE_CAPACITY = 1024;
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int ITERATIONS = 5;
+
+    /**
+     * Measures the batch, which performs the given number of operations, and
+     * prints its throughput and allocation rate.
+     */
+    private static void measure(String name, int n, long operations,
+        Benchmark.Batch batch) {
+        Benchmark result = Benchmark.measure(WARMUP_ITERATIONS, ITERATIONS,
+            operations, batch);
+        StdOut.printf("%-28s %8d %16.1f %7.1f%% %10.1f\n", name, n,
+            result.rate(), 100 * result.deviation(), result.bytes());
+    }
+
+    /**
+     * Fills a linked deque with n items from alternating ends and empties it
+     * from alternating ends.
+     */
+    private static long linkedDeque(int n, Integer[] values) {
+        Deque<Integer> deque = new Deque<>();
+        long sum = 0;
+        for (int i = 0; i < n; i += 1) {
+            if (i % 2 == 0) {
+                deque.addFirst(values[i]);
+            } else {
+                deque.addLast(values[i]);
+            }
+        }
+        for (int i = 0; i < n; i += 1) {
+            if (i % 2 == 0) {
+                sum += deque.removeFirst();
+            } else {
+                sum += deque.removeLast();
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Fills an array deque with n items from alternating ends and empties it
+     * from alternating ends.
+     */
+    private static long arrayDeque(int n, Integer[] values) {
+        ResizingArrayDeque<Integer> deque = new ResizingArrayDeque<>();
+        long sum = 0;
+        for (int i = 0; i < n; i += 1) {
+            if (i % 2 == 0) {
+                deque.addFirst(values[i]);
+            } else {
+                deque.addLast(values[i]);
+            }
+        }
+        for (int i = 0; i < n; i += 1) {
+            if (i % 2 == 0) {
+                sum += deque.removeFirst();
+            } else {
+                sum += deque.removeLast();
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Moves n items into each queue and out to a list, one at a time and
+     * then with the bulk operations.
+     */
+    private static void benchmarkBulk(int n, Integer[] values) {
+        measure("Deque single", n, 2L * n, () -> {
+            Deque<Integer> deque = new Deque<>();
+            List<Integer> list = new ArrayList<>(n);
+            for (Integer value : values) {
+                deque.addLast(value);
+            }
+            while (!deque.isEmpty()) {
+                list.add(deque.removeFirst());
+            }
+            return list.size();
+        });
+        measure("Deque bulk", n, 2L * n, () -> {
+            Deque<Integer> deque = new Deque<>();
+            List<Integer> list = new ArrayList<>(n);
+            deque.addAllLast(values);
+            return deque.drainTo(list, n);
+        });
+        measure("ResizingArrayDeque single", n, 2L * n, () -> {
+            ResizingArrayDeque<Integer> deque = new ResizingArrayDeque<>();
+            List<Integer> list = new ArrayList<>(n);
+            for (Integer value : values) {
+                deque.addLast(value);
+            }
+            while (!deque.isEmpty()) {
+                list.add(deque.removeFirst());
+            }
+            return list.size();
+        });
+        measure("ResizingArrayDeque bulk", n, 2L * n, () -> {
+            ResizingArrayDeque<Integer> deque = new ResizingArrayDeque<>();
+            List<Integer> list = new ArrayList<>(n);
+            deque.addAllLast(values);
+            return deque.drainTo(list, n);
+        });
+        measure("RandomizedQueue single", n, 2L * n, () -> {
+            RandomizedQueue<Integer> queue = new RandomizedQueue<>();
+            List<Integer> list = new ArrayList<>(n);
+            for (Integer value : values) {
+                queue.enqueue(value);
+            }
+            while (!queue.isEmpty()) {
+                list.add(queue.dequeue());
+            }
+            return list.size();
+        });
+        measure("RandomizedQueue bulk", n, 2L * n, () -> {
+            RandomizedQueue<Integer> queue = new RandomizedQueue<>();
+            List<Integer> list = new ArrayList<>(n);
+            queue.enqueueAll(values);
+            return queue.drainTo(list, n);
+        });
+    }
+
+    /**
+     * Fills a randomized queue with n items and empties it, with the given
+     * statistics, or without instrumentation if they are null.
+     */
+    private static long randomizedQueue(Integer[] values, QueueStats stats) {
+        RandomizedQueue<Integer> queue = new RandomizedQueue<>();
+        queue.setStats(stats);
+        long sum = 0;
+        for (Integer value : values) {
+            queue.enqueue(value);
+        }
+        while (!queue.isEmpty()) {
+            sum += queue.dequeue();
+        }
+        return sum;
+    }
+
+    /**
+     * Measures the overhead of instrumenting a randomized queue.
+     */
+    private static void benchmarkStats(int n, Integer[] values) {
+        measure("RandomizedQueue", n, 2L * n,
+            () -> randomizedQueue(values, null));
+        QueueStats stats = new QueueStats();
+        measure("RandomizedQueue stats", n, 2L * n,
+            () -> randomizedQueue(values, stats));
+    }
+
+    /**
+     * A deque shared by an owner thread, which adds items to the front, and
+     * thief threads, which remove items from the back. Removals return null
+     * if the deque is empty.
+     */
+    private interface SharedDeque {
+        void addFirst(Integer item);
+
+        Integer removeLast();
+    }
+
+    /**
+     * Returns the throughput in items per second when the owner adds all
+     * values to the deque and the given number of thieves remove them.
+     */
+    private static double stealing(SharedDeque deque, Integer[] values,
+        int numThieves) throws InterruptedException {
+        AtomicLong remaining = new AtomicLong(values.length);
+        Thread[] thieves = new Thread[numThieves];
+        for (int i = 0; i < numThieves; i += 1) {
+            thieves[i] = new Thread(() -> {
+                while (remaining.get() > 0) {
+                    if (deque.removeLast() != null) {
+                        remaining.decrementAndGet();
+                    }
+                }
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread thief : thieves) {
+            thief.start();
+        }
+        for (Integer value : values) {
+            deque.addFirst(value);
+        }
+        for (Thread thief : thieves) {
+            thief.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        return values.length / (elapsed / 1e9);
+    }
+
+    /**
+     * Compares the lock-free work-stealing deque with a linked deque guarded
+     * by synchronized blocks as the number of thieves grows.
+     */
+    private static void benchmarkStealing() throws InterruptedException {
+        Integer[] values = values(CONCURRENT_ITEMS);
+        StdOut.printf("\n%-28s %8s %16s\n", "benchmark", "thieves",
+            "items/s");
+        for (int threads : THREADS) {
+            for (int i = 0; i < WARMUP_ITERATIONS; i += 1) {
+                stealing(workStealing(), values, threads);
+                stealing(synchronizedDeque(), values, threads);
+            }
+            StdOut.printf("%-28s %8d %16.1f\n", "WorkStealingDeque", threads,
+                stealing(workStealing(), values, threads));
+            StdOut.printf("%-28s %8d %16.1f\n", "synchronized Deque", threads,
+                stealing(synchronizedDeque(), values, threads));
+        }
+    }
+
+    private static SharedDeque workStealing() {
+        WorkStealingDeque<Integer> deque = new WorkStealingDeque<>();
+        return new SharedDeque() {
+            public void addFirst(Integer item) {
+                deque.addFirst(item);
+            }
+
+            public Integer removeLast() {
+                return deque.removeLast();
+            }
+        };
+    }
+
+    private static SharedDeque synchronizedDeque() {
+        Deque<Integer> deque = new Deque<>();
+        return new SharedDeque() {
+            public void addFirst(Integer item) {
+                synchronized (deque) {
+                    deque.addFirst(item);
+                }
+            }
+
+            public Integer removeLast() {
+                synchronized (deque) {
+                    if (deque.isEmpty()) {
+                        return null;
+                    }
+                    return deque.removeLast();
+                }
+            }
+        };
+    }
+
+    /**
+     * A randomized queue shared by several threads.
+     */
+    private interface SharedQueue {
+        void enqueue(Integer item);
+
+        Integer dequeue();
+    }
+
+    /**
+     * Returns the throughput in operations per second when each thread
+     * alternately enqueues and dequeues an item.
+     */
+    private static double randomized(SharedQueue queue, Integer[] values,
+        int numThreads) throws InterruptedException {
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i += 1) {
+            threads[i] = new Thread(() -> {
+                // Keep a few items in the queue so dequeues never fail.
+                for (int j = 0; j < 8; j += 1) {
+                    queue.enqueue(values[j]);
+                }
+                for (int j = 0; j < OPS_PER_THREAD; j += 1) {
+                    queue.enqueue(values[j]);
+                    queue.dequeue();
+                }
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        return 2.0 * OPS_PER_THREAD * numThreads / (elapsed / 1e9);
+    }
+
+    /**
+     * Compares the striped concurrent randomized queue with a randomized
+     * queue guarded by synchronized blocks as the number of threads grows.
+     */
+    private static void benchmarkRandomized() throws InterruptedException {
+        Integer[] values = values(OPS_PER_THREAD);
+        StdOut.printf("\n%-28s %8s %16s\n", "benchmark", "threads",
+            "ops/s");
+        for (int threads : RANDOMIZED_THREADS) {
+            for (int i = 0; i < WARMUP_ITERATIONS; i += 1) {
+                randomized(stripedQueue(threads), values, threads);
+                randomized(synchronizedQueue(), values, threads);
+            }
+            StdOut.printf("%-28s %8d %16.1f\n", "ConcurrentRandomizedQueue",
+                threads, randomized(stripedQueue(threads), values, threads));
+            StdOut.printf("%-28s %8d %16.1f\n", "synchronized RandomizedQueue",
+                threads, randomized(synchronizedQueue(), values, threads));
+        }
+    }
+
+    /**
+     * Returns a striped queue with one segment per thread, whatever the
+     * number of processors, so that the choice of a segment is exercised.
+     */
+    private static SharedQueue stripedQueue(int numSegments) {
+        ConcurrentRandomizedQueue<Integer> queue =
+            new ConcurrentRandomizedQueue<>(numSegments);
+        return new SharedQueue() {
+            public void enqueue(Integer item) {
+                queue.enqueue(item);
+            }
+
+            public Integer dequeue() {
+                return queue.dequeue();
+            }
+        };
+    }
+
+    private static SharedQueue synchronizedQueue() {
+        RandomizedQueue<Integer> queue = new RandomizedQueue<>();
+        return new SharedQueue() {
+            public void enqueue(Integer item) {
+                synchronized (queue) {
+                    queue.enqueue(item);
+                }
+            }
+
+            public Integer dequeue() {
+                synchronized (queue) {
+                    return queue.dequeue();
+                }
+            }
+        };
+    }
+
+    /**
+     * A bounded blocking buffer between the stages of a pipeline.
+     */
+    private interface Stage {
+        void put(Integer item) throws InterruptedException;
+
+        Integer take() throws InterruptedException;
+    }
+
+    /**
+     * Runs a pipeline in which the given numbers of producers and consumers
+     * pass all values through the stage, and prints the throughput and the
+     * median and 99th percentile time an item spends in the stage.
+     */
+    private static void pipeline(String name, Stage stage, Integer[] values,
+        int numPairs, boolean print) throws InterruptedException {
+        /*
+         * Time at which each item was put, published to the consumer by the
+         * lock of the stage.
+         */
+        long[] putTimes = new long[values.length];
+        long[][] latencies = new long[numPairs][];
+        int perThread = values.length / numPairs;
+        Thread[] threads = new Thread[2 * numPairs];
+        for (int i = 0; i < numPairs; i += 1) {
+            int first = i * perThread;
+            int consumer = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    for (int j = first; j < first + perThread; j += 1) {
+                        putTimes[j] = System.nanoTime();
+                        stage.put(values[j]);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads[numPairs + i] = new Thread(() -> {
+                long[] times = new long[perThread];
+                try {
+                    for (int j = 0; j < perThread; j += 1) {
+                        int item = stage.take();
+                        times[j] = System.nanoTime() - putTimes[item];
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                latencies[consumer] = times;
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (!print) {
+            return;
+        }
+        long[] all = new long[numPairs * perThread];
+        for (int i = 0; i < numPairs; i += 1) {
+            System.arraycopy(latencies[i], 0, all, i * perThread, perThread);
+        }
+        Arrays.sort(all);
+        StdOut.printf("%-28s %8d %16.1f %10.1f %10.1f\n", name, numPairs,
+            all.length / (elapsed / 1e9), all[all.length / 2] / 1e3,
+            all[(int) (all.length * 0.99)] / 1e3);
+    }
+
+    /**
+     * Compares the bounded blocking deque and randomized queue with
+     * ArrayBlockingQueue as buffers between producers and consumers.
+     */
+    private static void benchmarkPipeline() throws InterruptedException {
+        Integer[] values = values(PIPELINE_ITEMS);
+        StdOut.printf("\n%-28s %8s %16s %10s %10s\n", "benchmark", "pairs",
+            "items/s", "p50 us", "p99 us");
+        for (int pairs : PIPELINE_THREADS) {
+            for (int i = 0; i <= WARMUP_ITERATIONS; i += 1) {
+                boolean print = i == WARMUP_ITERATIONS;
+                pipeline("BoundedBlockingDeque", blockingDeque(), values,
+                    pairs, print);
+                pipeline("BoundedBlockingRandomized", blockingRandomized(),
+                    values, pairs, print);
+                pipeline("ArrayBlockingQueue", arrayBlockingQueue(), values,
+                    pairs, print);
+            }
+        }
+    }
+
+    private static Stage blockingDeque() {
+        BoundedBlockingDeque<Integer> deque =
+            new BoundedBlockingDeque<>(PIPELINE_CAPACITY);
+        return new Stage() {
+            public void put(Integer item) throws InterruptedException {
+                deque.putLast(item);
+            }
+
+            public Integer take() throws InterruptedException {
+                return deque.takeFirst();
+            }
+        };
+    }
+
+    private static Stage blockingRandomized() {
+        BoundedBlockingRandomizedQueue<Integer> queue =
+            new BoundedBlockingRandomizedQueue<>(PIPELINE_CAPACITY);
+        return new Stage() {
+            public void put(Integer item) throws InterruptedException {
+                queue.put(item);
+            }
+
+            public Integer take() throws InterruptedException {
+                return queue.take();
+            }
+        };
+    }
+
+    private static Stage arrayBlockingQueue() {
+        ArrayBlockingQueue<Integer> queue =
+            new ArrayBlockingQueue<>(PIPELINE_CAPACITY);
+        return new Stage() {
+            public void put(Integer item) throws InterruptedException {
+                queue.put(item);
+            }
+
+            public Integer take() throws InterruptedException {
+                return queue.take();
+            }
+        };
+    }
+
+    /**
+     * Returns n distinct boxed values, created up front so that boxing is
+     * not counted as allocation by the queues.
+     */
+    private static Integer[] values(int n) {
+        Integer[] values = new Integer[n];
+        for (int i = 0; i < n; i += 1) {
+            values[i] = i;
+        }
+        return values;
+    }
+
+    /**
+     * Runs all benchmarks.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        StdOut.printf("%-28s %8s %16s %8s %10s\n", "benchmark", "n",
+            "ops/s", "+/-", "B/op");
+        for (int n : SIZES) {
+            Integer[] values = values(n);
+            measure("Deque", n, 2L * n, () -> linkedDeque(n, values));
+            measure("ResizingArrayDeque", n, 2L * n,
+                () -> arrayDeque(n, values));
+        }
+        for (int n : SIZES) {
+            benchmarkBulk(n, values(n));
+        }
+        for (int n : SIZES) {
+            benchmarkStats(n, values(n));
+        }
+        benchmarkStealing();
+        benchmarkRandomized();
+        benchmarkPipeline();
+    }
+}
@@ -0,0 +1,282 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Operation counters, resize events, high-water marks and a latency
+ * histogram of a queue. Instrumentation is opt-in: a queue records into its
+ * stats only after setStats() is called, and otherwise pays a single null
+ * check per operation.
+ * <p>
+ * The counters may be updated by the thread that uses the queue while they
+ * are read by another, such as a JMX client, and one instance may be shared
+ * by several queues to aggregate their statistics.
+ * <p>
+ * The latency histogram has log-linear buckets in the style of
+ * HdrHistogram: each power of two is split into SUB_BUCKETS buckets, so a
+ * percentile is reported within 25% of its true value with a fixed 2 KB of
+ * counts and no allocation when recording.
+ * 
+ * @author Yaohui Wu
+ */
+public class QueueStats implements QueueStatsMXBean {
+    // Estimated size of a reference, assuming compressed references.
+    private static final int REFERENCE_BYTES = 4;
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int NUM_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1)
+        * SUB_BUCKETS;
+    private final LongAdder adds;
+    private final LongAdder removes;
+    private final LongAdder samples;
+    private final LongAdder grows;
+    private final LongAdder shrinks;
+    private final LongAdder bytesCopied;
+    private final LongAccumulator highWaterMark; // Largest size seen.
+    private final LongAccumulator peakCapacity; // Largest capacity seen.
+    // Number of operations whose latency falls in each bucket.
+    private final AtomicLongArray latencies;
+    private final LongAccumulator maxLatency;
+
+    /**
+     * Constructs empty statistics.
+     */
+    public QueueStats() {
+        adds = new LongAdder();
+        removes = new LongAdder();
+        samples = new LongAdder();
+        grows = new LongAdder();
+        shrinks = new LongAdder();
+        bytesCopied = new LongAdder();
+        highWaterMark = new LongAccumulator(Math::max, 0);
+        peakCapacity = new LongAccumulator(Math::max, 0);
+        latencies = new AtomicLongArray(NUM_BUCKETS);
+        maxLatency = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * Records that count items were added, leaving the queue with the given
+     * size, in the given time.
+     */
+    void recordAdd(int count, int size, long nanos) {
+        adds.add(count);
+        highWaterMark.accumulate(size);
+        recordLatency(nanos);
+    }
+
+    /**
+     * Records that count items were removed in the given time.
+     */
+    void recordRemove(int count, long nanos) {
+        removes.add(count);
+        recordLatency(nanos);
+    }
+
+    /**
+     * Records that an item was sampled in the given time.
+     */
+    void recordSample(long nanos) {
+        samples.increment();
+        recordLatency(nanos);
+    }
+
+    /**
+     * Records the capacity of a queue, which is the memory it holds.
+     */
+    void recordCapacity(int capacity) {
+        peakCapacity.accumulate(capacity);
+    }
+
+    /**
+     * Records that the array of a queue was resized from the old to the new
+     * capacity, copying the given number of items.
+     */
+    void recordResize(int oldCapacity, int newCapacity, int copied) {
+        if (newCapacity > oldCapacity) {
+            grows.increment();
+        } else {
+            shrinks.increment();
+        }
+        bytesCopied.add((long) copied * REFERENCE_BYTES);
+        peakCapacity.accumulate(newCapacity);
+    }
+
+    private void recordLatency(long nanos) {
+        latencies.incrementAndGet(bucket(nanos));
+        maxLatency.accumulate(nanos);
+    }
+
+    /**
+     * Returns the bucket of the latency. Latencies below SUB_BUCKETS have a
+     * bucket each, and larger latencies are bucketed by their highest
+     * SUB_BUCKET_BITS + 1 bits.
+     */
+    private static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(nanos, 0);
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int sub = (int) (nanos >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the largest latency in the bucket.
+     */
+    private static long bucketMax(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        long low = (SUB_BUCKETS + sub) << shift;
+        return low + (1L << shift) - 1;
+    }
+
+    /**
+     * Returns an upper bound on the given percentile of the latencies, or 0
+     * if no operation has been recorded.
+     */
+    public long latencyPercentile(double percentile) {
+        validatePercentile(percentile);
+        long total = 0;
+        long[] counts = new long[NUM_BUCKETS];
+        for (int i = 0; i < NUM_BUCKETS; i += 1) {
+            counts[i] = latencies.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100.0 * total);
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i += 1) {
+            seen += counts[i];
+            if (seen >= Math.max(rank, 1)) {
+                return Math.min(bucketMax(i), maxLatency.get());
+            }
+        }
+        return maxLatency.get();
+    }
+
+    private void validatePercentile(double percentile) {
+        if (!(percentile >= 0.0 && percentile <= 100.0)) {
+            String error = "Invalid percentile " + percentile;
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    @Override
+    public long getAdds() {
+        return adds.sum();
+    }
+
+    @Override
+    public long getRemoves() {
+        return removes.sum();
+    }
+
+    @Override
+    public long getSamples() {
+        return samples.sum();
+    }
+
+    @Override
+    public long getGrows() {
+        return grows.sum();
+    }
+
+    @Override
+    public long getShrinks() {
+        return shrinks.sum();
+    }
+
+    @Override
+    public long getBytesCopied() {
+        return bytesCopied.sum();
+    }
+
+    @Override
+    public long getHighWaterMark() {
+        return highWaterMark.get();
+    }
+
+    @Override
+    public long getPeakCapacity() {
+        return peakCapacity.get();
+    }
+
+    @Override
+    public long getLatencyP50Nanos() {
+        return latencyPercentile(50.0);
+    }
+
+    @Override
+    public long getLatencyP99Nanos() {
+        return latencyPercentile(99.0);
+    }
+
+    @Override
+    public long getLatencyP999Nanos() {
+        return latencyPercentile(99.9);
+    }
+
+    @Override
+    public long getLatencyMaxNanos() {
+        return maxLatency.get();
+    }
+
+    /**
+     * Clears all statistics.
+     */
+    @Override
+    public void reset() {
+        adds.reset();
+        removes.reset();
+        samples.reset();
+        grows.reset();
+        shrinks.reset();
+        bytesCopied.reset();
+        highWaterMark.reset();
+        peakCapacity.reset();
+        for (int i = 0; i < NUM_BUCKETS; i += 1) {
+            latencies.set(i, 0);
+        }
+        maxLatency.reset();
+    }
+
+    /**
+     * Registers the statistics with the platform MBean server under the
+     * given name, and returns the name of the MBean.
+     */
+    public ObjectName register(String name) {
+        try {
+            ObjectName objectName =
+                new ObjectName("queues:type=QueueStats,name=" + name);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            String error = "Cannot register statistics as " + name;
+            throw new IllegalArgumentException(error, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "adds=" + getAdds() + " removes=" + getRemoves()
+            + " samples=" + getSamples() + " grows=" + getGrows()
+            + " shrinks=" + getShrinks() + " bytesCopied=" + getBytesCopied()
+            + " highWaterMark=" + getHighWaterMark()
+            + " peakCapacity=" + getPeakCapacity()
+            + " p50=" + getLatencyP50Nanos() + "ns"
+            + " p99=" + getLatencyP99Nanos() + "ns"
+            + " max=" + getLatencyMaxNanos() + "ns";
+    }
+}
@@ -0,0 +1,33 @@
+/**
+ * Management interface of QueueStats, so that the statistics of a queue can
+ * be read and reset over JMX.
+ * 
+ * @author Yaohui Wu
+ */
+public interface QueueStatsMXBean {
+    long getAdds();
+
+    long getRemoves();
+
+    long getSamples();
+
+    long getGrows();
+
+    long getShrinks();
+
+    long getBytesCopied();
+
+    long getHighWaterMark();
+
+    long getPeakCapacity();
+
+    long getLatencyP50Nanos();
+
+    long getLatencyP99Nanos();
+
+    long getLatencyP999Nanos();
+
+    long getLatencyMaxNanos();
+
+    void reset();
+}
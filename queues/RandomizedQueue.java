@@ -1,3 +1,5 @@
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -16,6 +18,9 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
     private Item[] items;
     private int size; // Number of items in the queue.
     private int capacity; // Capacity of the queue.
+    // Number of changes to the queue, used to detect stale iterators.
+    private int modCount;
+    private QueueStats stats; // Statistics, or null if not instrumented.
 
     /**
      * Constructs an empty randomized queue.
@@ -24,6 +29,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         capacity = INITIAL_CAPACITY;
         items = (Item[]) new Object[capacity];
         size = 0;
+        modCount = 0;
     }
 
     /**
@@ -40,17 +46,135 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         return size;
     }
 
+    /**
+     * Records the operations of the queue into the statistics from now on,
+     * or stops recording if the statistics are null.
+     */
+    public void setStats(QueueStats stats) {
+        this.stats = stats;
+        if (stats != null) {
+            stats.recordCapacity(capacity);
+        }
+    }
+
+    /**
+     * Returns the statistics of the queue, or null if not instrumented.
+     */
+    public QueueStats stats() {
+        return stats;
+    }
+
+    /**
+     * Returns the current time if the queue is instrumented.
+     */
+    private long startTimer() {
+        if (stats == null) {
+            return 0;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Records that count items were added since the start time.
+     */
+    private void recordAdd(int count, long start) {
+        if (stats != null) {
+            stats.recordAdd(count, size, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records that count items were removed since the start time.
+     */
+    private void recordRemove(int count, long start) {
+        if (stats != null) {
+            stats.recordRemove(count, System.nanoTime() - start);
+        }
+    }
+
     /**
      * Adds an item to the front of the queue.
      */
     public void enqueue(Item item) {
         validateEnqueue(item);
+        long start = startTimer();
         // Expand the queue if it is full.
         if (size == capacity) {
             resize(capacity * RESIZE_FACTOR);
         }
         items[size] = item;
         size += 1;
+        modCount += 1;
+        recordAdd(1, start);
+    }
+
+    /**
+     * Adds the items to the queue.
+     */
+    public void enqueueAll(Item[] newItems) {
+        validateEnqueueAll(newItems);
+        long start = startTimer();
+        int length = newItems.length;
+        // Expand the queue once to hold all the items.
+        int newCapacity = capacity;
+        while (newCapacity < size + length) {
+            newCapacity *= RESIZE_FACTOR;
+        }
+        if (newCapacity != capacity) {
+            resize(newCapacity);
+        }
+        System.arraycopy(newItems, 0, items, size, length);
+        size += length;
+        modCount += 1;
+        recordAdd(length, start);
+    }
+
+    /**
+     * Adds the items to the queue.
+     */
+    public void enqueueAll(Iterable<Item> newItems) {
+        validateEnqueueAll(newItems);
+        long start = startTimer();
+        /*
+         * Write the items after the end of the queue, growing it as needed,
+         * and count them only once all are valid, so that a null item adds
+         * nothing and a queue can be added to itself.
+         */
+        int length = 0;
+        for (Item item : newItems) {
+            if (item == null) {
+                // Set the items written so far to null to avoid loitering.
+                for (int i = size; i < size + length; i += 1) {
+                    items[i] = null;
+                }
+                validateEnqueue(item);
+            }
+            if (size + length == capacity) {
+                resize(capacity * RESIZE_FACTOR, size + length);
+            }
+            items[size + length] = item;
+            length += 1;
+        }
+        size += length;
+        modCount += 1;
+        recordAdd(length, start);
+    }
+
+    private void validateEnqueueAll(Item[] newItems) {
+        if (newItems == null) {
+            String error = "Items cannot be null";
+            throw new IllegalArgumentException(error);
+        }
+        for (Item item : newItems) {
+            validateEnqueue(item);
+        }
+    }
+
+    private void validateEnqueueAll(Iterable<Item> newItems) {
+        if (newItems == null) {
+            String error = "Items cannot be null";
+            throw new IllegalArgumentException(error);
+        }
     }
 
     private void validateEnqueue(Item item) {
@@ -65,6 +189,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
      */
     public Item dequeue() {
         validateQueue();
+        long start = startTimer();
         int index = StdRandom.uniformInt(size);
         Item item = items[index];
         // Swap the item to be removed with the last item in the queue.
@@ -72,21 +197,72 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         // Set the item to be removed to null to avoid loitering.
         items[size - 1] = null;
         size -= 1;
+        modCount += 1;
         // Shrink the queue if it is one-quarter full.
         if (size > 0 && size == capacity / SHRINK_FACTOR) {
             resize(capacity / RESIZE_FACTOR);
         }
+        recordRemove(1, start);
         return item;
     }
 
+    /**
+     * Removes at most max random items from the queue, adds them to the
+     * collection, and returns the number of items removed.
+     */
+    public int drainTo(Collection<? super Item> collection, int max) {
+        validateDrain(collection, max);
+        long start = startTimer();
+        int count = Math.min(max, size);
+        modCount += 1;
+        for (int i = 0; i < count; i += 1) {
+            int index = StdRandom.uniformInt(size);
+            collection.add(items[index]);
+            // Swap the removed item with the last item in the queue.
+            items[index] = items[size - 1];
+            // Set the removed item to null to avoid loitering.
+            items[size - 1] = null;
+            size -= 1;
+        }
+        // Shrink the queue once until it is more than one-quarter full.
+        int newCapacity = capacity;
+        while (size <= newCapacity / SHRINK_FACTOR
+            && newCapacity / RESIZE_FACTOR >= INITIAL_CAPACITY) {
+            newCapacity /= RESIZE_FACTOR;
+        }
+        if (newCapacity != capacity) {
+            resize(newCapacity);
+        }
+        recordRemove(count, start);
+        return count;
+    }
+
+    private void validateDrain(Collection<? super Item> collection, int max) {
+        if (collection == null || max < 0) {
+            String error = "Invalid collection or maximum " + max;
+            throw new IllegalArgumentException(error);
+        }
+    }
+
     /**
      * Resizes the queue to the new capacity.
      */
     private void resize(int newCapacity) {
+        resize(newCapacity, size);
+    }
+
+    /**
+     * Resizes the queue to the new capacity, keeping the given number of
+     * slots from the start.
+     */
+    private void resize(int newCapacity, int count) {
         if (newCapacity >= INITIAL_CAPACITY) {
+            if (stats != null) {
+                stats.recordResize(capacity, newCapacity, count);
+            }
             capacity = newCapacity;
             Item[] newItems = (Item[]) new Object[capacity];
-            System.arraycopy(items, 0, newItems, 0, size);
+            System.arraycopy(items, 0, newItems, 0, count);
             items = newItems;
         }
     }
@@ -96,8 +272,12 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
      */
     public Item sample() {
         validateQueue();
+        long start = startTimer();
         int index = StdRandom.uniformInt(size);
         Item item = items[index];
+        if (stats != null) {
+            stats.recordSample(System.nanoTime() - start);
+        }
         return item;
     }
 
@@ -115,15 +295,22 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         return new RandomizedQueueIterator();
     }
 
+    /**
+     * Iterator that shuffles lazily: the ith call to next() performs the ith
+     * step of a Fisher-Yates shuffle of the indices of the queue, recording
+     * only the displaced indices, so the first k items cost O(k) time and
+     * space. The queue must not be changed during iteration.
+     */
     private class RandomizedQueueIterator implements Iterator<Item> {
         private int index;
-        private Item[] randomItems;
+        private int expectedModCount;
+        // Indices moved by the shuffle, keyed by the position they moved to.
+        private IndexMap moved;
 
         public RandomizedQueueIterator() {
             index = 0;
-            randomItems = (Item[]) new Object[size];
-            System.arraycopy(items, 0, randomItems, 0, size);
-            StdRandom.shuffle(randomItems);
+            expectedModCount = modCount;
+            moved = new IndexMap();
         }
 
         public boolean hasNext() {
@@ -132,12 +319,21 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 
         public Item next() {
             validateNext();
-            Item item = randomItems[index];
+            // Swap the index at a random remaining position into position i.
+            int j = index + StdRandom.uniformInt(size - index);
+            int chosen = moved.get(j);
+            if (j != index) {
+                moved.put(j, moved.get(index));
+            }
             index += 1;
-            return item;
+            return items[chosen];
         }
 
         private void validateNext() {
+            if (expectedModCount != modCount) {
+                String error = "Queue was modified during iteration";
+                throw new ConcurrentModificationException(error);
+            }
             if (!hasNext()) {
                 String error = "No more items to iterate";
                 throw new NoSuchElementException(error);
@@ -150,6 +346,70 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         }
     }
 
+    /**
+     * Map from int to int where a missing key maps to itself, using linear
+     * probing over primitive arrays.
+     */
+    private static class IndexMap {
+        private static final int INITIAL_CAPACITY = 16;
+        // Keys are stored plus one so that 0 marks an empty slot.
+        private int[] keys;
+        private int[] values;
+        private int size;
+
+        public IndexMap() {
+            keys = new int[INITIAL_CAPACITY];
+            values = new int[INITIAL_CAPACITY];
+            size = 0;
+        }
+
+        private int slot(int key) {
+            int mask = keys.length - 1;
+            int hash = key * 0x9E3779B9; // Fibonacci hashing.
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (keys[slot] != 0 && keys[slot] != key + 1) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        public int get(int key) {
+            int slot = slot(key);
+            if (keys[slot] == 0) {
+                return key;
+            }
+            return values[slot];
+        }
+
+        public void put(int key, int value) {
+            int slot = slot(key);
+            if (keys[slot] == 0) {
+                // Expand the map if it is half full.
+                if (2 * (size + 1) > keys.length) {
+                    resize();
+                    slot = slot(key);
+                }
+                keys[slot] = key + 1;
+                size += 1;
+            }
+            values[slot] = value;
+        }
+
+        private void resize() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i += 1) {
+                if (oldKeys[i] != 0) {
+                    int slot = slot(oldKeys[i] - 1);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+
     /**
      * Unit tests for the RandomizedQueue data structure.
      */
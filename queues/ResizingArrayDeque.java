@@ -0,0 +1,378 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Implementation of a double-ended queue (deque) using a circular resizing
+ * array, which allocates nothing per item.
+ * 
+ * @author Yaohui Wu
+ */
+public class ResizingArrayDeque<Item> implements Iterable<Item> {
+    // Capacities are powers of 2 so that indices wrap around with a mask.
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int RESIZE_FACTOR = 2;
+    private static final int SHRINK_FACTOR = 4;
+    private Item[] items;
+    private int head; // Index of the item at the front of the deque.
+    private int size; // Number of items in the deque.
+
+    /**
+     * Constructs an empty deque.
+     */
+    public ResizingArrayDeque() {
+        items = (Item[]) new Object[INITIAL_CAPACITY];
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Checks if the deque is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of items in the deque.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the index in the array of the ith item from the front.
+     */
+    private int index(int i) {
+        return (head + i) & (items.length - 1);
+    }
+
+    /**
+     * Adds an item to the front of the deque.
+     */
+    public void addFirst(Item item) {
+        validateItem(item);
+        // Expand the deque if it is full.
+        if (size == items.length) {
+            resize(items.length * RESIZE_FACTOR);
+        }
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        size += 1;
+    }
+
+    /**
+     * Adds an item to the back of the deque.
+     */
+    public void addLast(Item item) {
+        validateItem(item);
+        // Expand the deque if it is full.
+        if (size == items.length) {
+            resize(items.length * RESIZE_FACTOR);
+        }
+        items[index(size)] = item;
+        size += 1;
+    }
+
+    /**
+     * Adds the items to the front of the deque, keeping their order, so that
+     * the first item becomes the front of the deque.
+     */
+    public void addAllFirst(Item[] items) {
+        validateItems(items);
+        int length = items.length;
+        ensureCapacity(size + length);
+        head = (head - length) & (this.items.length - 1);
+        copyIn(items, head);
+        size += length;
+    }
+
+    /**
+     * Adds the items to the front of the deque, keeping their order, so that
+     * the first item becomes the front of the deque.
+     */
+    public void addAllFirst(Iterable<Item> items) {
+        int length = appendAll(items);
+        size += length;
+        // Move the new items from the back to the front, one at a time.
+        for (int i = 0; i < length; i += 1) {
+            int last = index(size - 1);
+            Item item = this.items[last];
+            this.items[last] = null;
+            head = (head - 1) & (this.items.length - 1);
+            this.items[head] = item;
+        }
+    }
+
+    /**
+     * Adds the items to the back of the deque, keeping their order, so that
+     * the last item becomes the back of the deque.
+     */
+    public void addAllLast(Item[] items) {
+        validateItems(items);
+        int length = items.length;
+        ensureCapacity(size + length);
+        copyIn(items, index(size));
+        size += length;
+    }
+
+    /**
+     * Adds the items to the back of the deque, keeping their order, so that
+     * the last item becomes the back of the deque.
+     */
+    public void addAllLast(Iterable<Item> items) {
+        size += appendAll(items);
+    }
+
+    /**
+     * Writes the items into the array after the back of the deque, growing
+     * it as needed, and returns their number. The items are not counted in
+     * the size, so that they can be rolled back if one of them is null, and
+     * so that a deque can be added to itself.
+     */
+    private int appendAll(Iterable<Item> items) {
+        validateItems(items);
+        int length = 0;
+        for (Item item : items) {
+            if (item == null) {
+                // Set the items written so far to null to avoid loitering.
+                for (int i = 0; i < length; i += 1) {
+                    this.items[index(size + i)] = null;
+                }
+                validateItem(item);
+            }
+            if (size + length == this.items.length) {
+                resize(this.items.length * RESIZE_FACTOR, size + length);
+            }
+            this.items[index(size + length)] = item;
+            length += 1;
+        }
+        return length;
+    }
+
+    /**
+     * Copies the items into the array starting at the given index, in at
+     * most two runs, before and after wrapping.
+     */
+    private void copyIn(Item[] newItems, int start) {
+        int firstRun = Math.min(newItems.length, items.length - start);
+        System.arraycopy(newItems, 0, items, start, firstRun);
+        System.arraycopy(newItems, firstRun, items, 0,
+            newItems.length - firstRun);
+    }
+
+    private void validateItems(Item[] items) {
+        if (items == null) {
+            String error = "Items cannot be null";
+            throw new IllegalArgumentException(error);
+        }
+        for (Item item : items) {
+            validateItem(item);
+        }
+    }
+
+    private void validateItems(Iterable<Item> items) {
+        if (items == null) {
+            String error = "Items cannot be null";
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Expands the deque to the smallest capacity that holds the given number
+     * of items.
+     */
+    private void ensureCapacity(int needed) {
+        int newCapacity = items.length;
+        while (newCapacity < needed) {
+            newCapacity *= RESIZE_FACTOR;
+        }
+        if (newCapacity != items.length) {
+            resize(newCapacity);
+        }
+    }
+
+    private void validateItem(Item item) {
+        if (item == null) {
+            String error = "Item cannot be null";
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Removes and returns the item from the front of the deque.
+     */
+    public Item removeFirst() {
+        validateDeque();
+        Item item = items[head];
+        // Set the removed item to null to avoid loitering.
+        items[head] = null;
+        head = (head + 1) & (items.length - 1);
+        size -= 1;
+        shrink();
+        return item;
+    }
+
+    /**
+     * Removes and returns the item from the back of the deque.
+     */
+    public Item removeLast() {
+        validateDeque();
+        int last = index(size - 1);
+        Item item = items[last];
+        // Set the removed item to null to avoid loitering.
+        items[last] = null;
+        size -= 1;
+        shrink();
+        return item;
+    }
+
+    /**
+     * Removes at most max items from the front of the deque, adds them to
+     * the collection in order, and returns the number of items removed.
+     */
+    public int drainTo(Collection<? super Item> collection, int max) {
+        validateDrain(collection, max);
+        int count = Math.min(max, size);
+        if (count == 0) {
+            return 0;
+        }
+        // Drain the items in at most two runs, before and after wrapping.
+        int firstRun = Math.min(count, items.length - head);
+        collection.addAll(Arrays.asList(items).subList(head, head + firstRun));
+        collection.addAll(Arrays.asList(items).subList(0, count - firstRun));
+        // Set the drained items to null to avoid loitering.
+        Arrays.fill(items, head, head + firstRun, null);
+        Arrays.fill(items, 0, count - firstRun, null);
+        head = index(count);
+        size -= count;
+        shrinkToFit();
+        return count;
+    }
+
+    private void validateDrain(Collection<? super Item> collection, int max) {
+        if (collection == null || max < 0) {
+            String error = "Invalid collection or maximum " + max;
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Shrinks the deque until it is more than one-quarter full.
+     */
+    private void shrinkToFit() {
+        int newCapacity = items.length;
+        while (size <= newCapacity / SHRINK_FACTOR
+            && newCapacity / RESIZE_FACTOR >= INITIAL_CAPACITY) {
+            newCapacity /= RESIZE_FACTOR;
+        }
+        if (newCapacity != items.length) {
+            resize(newCapacity);
+        }
+    }
+
+    private void validateDeque() {
+        if (isEmpty()) {
+            String error = "Deque is empty";
+            throw new NoSuchElementException(error);
+        }
+    }
+
+    /**
+     * Shrinks the deque if it is one-quarter full.
+     */
+    private void shrink() {
+        if (size > 0 && size == items.length / SHRINK_FACTOR) {
+            resize(items.length / RESIZE_FACTOR);
+        }
+    }
+
+    /**
+     * Resizes the deque to the new capacity, moving the front item to the
+     * start of the new array.
+     */
+    private void resize(int newCapacity) {
+        resize(newCapacity, size);
+    }
+
+    /**
+     * Resizes the deque to the new capacity, keeping the given number of
+     * slots from the front.
+     */
+    private void resize(int newCapacity, int count) {
+        if (newCapacity < INITIAL_CAPACITY) {
+            return;
+        }
+        Item[] newItems = (Item[]) new Object[newCapacity];
+        // Copy the items in at most two runs, before and after wrapping.
+        int firstRun = Math.min(count, items.length - head);
+        System.arraycopy(items, head, newItems, 0, firstRun);
+        System.arraycopy(items, 0, newItems, firstRun, count - firstRun);
+        items = newItems;
+        head = 0;
+    }
+
+    /**
+     * Returns an iterator over the items in the deque from front to back.
+     */
+    public Iterator<Item> iterator() {
+        return new ResizingArrayDequeIterator();
+    }
+
+    private class ResizingArrayDequeIterator implements Iterator<Item> {
+        private int i = 0; // Position of the next item from the front.
+
+        public boolean hasNext() {
+            return i < size;
+        }
+
+        public Item next() {
+            validateNext();
+            Item item = items[index(i)];
+            i += 1;
+            return item;
+        }
+
+        private void validateNext() {
+            if (!hasNext()) {
+                String error = "No more items to iterate";
+                throw new NoSuchElementException(error);
+            }
+        }
+
+        public void remove() {
+            String error = "Remove operation is not supported";
+            throw new UnsupportedOperationException(error);
+        }
+    }
+
+    /**
+     * Unit tests for the ResizingArrayDeque data structure.
+     */
+    public static void main(String[] args) {
+        ResizingArrayDeque<Integer> deque = new ResizingArrayDeque<>();
+        System.out.println("Is deque empty? " + deque.isEmpty());
+        System.out.println("Size of deque: " + deque.size());
+        deque.addFirst(1);
+        deque.addFirst(2);
+        deque.addLast(3);
+        deque.addLast(4);
+        System.out.println("Is deque empty? " + deque.isEmpty());
+        System.out.println("Size of deque: " + deque.size());
+        System.out.println("Items in deque from front to back:");
+        for (int item : deque) {
+            System.out.println(item);
+        }
+        System.out.println("Remove first item: " + deque.removeFirst());
+        System.out.println("Remove last item: " + deque.removeLast());
+        System.out.println("Items in deque from front to back:");
+        for (int item : deque) {
+            System.out.println(item);
+        }
+        System.out.println("Remove first item: " + deque.removeFirst());
+        System.out.println("Remove last item: " + deque.removeLast());
+        System.out.println("Is deque empty? " + deque.isEmpty());
+        System.out.println("Size of deque: " + deque.size());
+    }
+}
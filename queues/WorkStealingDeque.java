@@ -0,0 +1,294 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Implementation of a lock-free work-stealing deque (Chase-Lev) using a
+ * circular resizing array. A single owner thread adds and removes items at
+ * the front, while any number of thief threads remove items from the back.
+ * 
+ * @author Yaohui Wu
+ */
+public class WorkStealingDeque<Item> {
+    private static final int INITIAL_CAPACITY = 32;
+    private static final int RESIZE_FACTOR = 2;
+    /*
+     * The items are at indices [top, bottom) of the array, modulo its length.
+     * The owner's end is bottom, which only the owner writes. The thieves'
+     * end is top, which only ever increases, by compare-and-set.
+     */
+    private final AtomicLong top;
+    private volatile long bottom;
+    private volatile AtomicReferenceArray<Item> items;
+    /*
+     * Positions below which the owner has cleared the slots of stolen items.
+     * Thieves never write the array, since the owner may have reused a slot
+     * by the time a steal completes, so the owner clears stolen slots lazily.
+     * Only the owner reads or writes this field.
+     */
+    private long cleared;
+
+    /**
+     * Constructs an empty deque.
+     */
+    public WorkStealingDeque() {
+        top = new AtomicLong(0);
+        bottom = 0;
+        items = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+        cleared = 0;
+    }
+
+    /**
+     * Checks if the deque is empty. The answer may be stale as soon as it is
+     * returned if other threads are using the deque.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the number of items in the deque. The answer may be stale as
+     * soon as it is returned if other threads are using the deque.
+     */
+    public int size() {
+        long size = bottom - top.get();
+        return (int) Math.max(size, 0);
+    }
+
+    /**
+     * Adds an item to the front of the deque. Only the owner thread may call
+     * this method.
+     */
+    public void addFirst(Item item) {
+        validateItem(item);
+        long b = bottom;
+        long t = top.get();
+        AtomicReferenceArray<Item> array = items;
+        // Expand the deque if it is full.
+        if (b - t >= array.length()) {
+            array = resize(array, t, b);
+        } else {
+            clearStolen(array, t, b);
+        }
+        array.set(index(array, b), item);
+        // Publish the item to the thieves.
+        bottom = b + 1;
+    }
+
+    private void validateItem(Item item) {
+        if (item == null) {
+            String error = "Item cannot be null";
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Removes and returns the item from the front of the deque, or returns
+     * null if the deque is empty. Only the owner thread may call this method.
+     */
+    public Item removeFirst() {
+        long b = bottom - 1;
+        AtomicReferenceArray<Item> array = items;
+        // Reserve the front item before looking at the thieves' end.
+        bottom = b;
+        long t = top.get();
+        if (t > b) {
+            // Empty deque.
+            bottom = b + 1;
+            clearStolen(array, t, b + 1);
+            return null;
+        }
+        int index = index(array, b);
+        Item item = array.get(index);
+        if (t < b) {
+            // More than one item, so no thief can take this one.
+            array.set(index, null);
+            return item;
+        }
+        // Last item: race the thieves for it.
+        if (top.compareAndSet(t, t + 1)) {
+            array.set(index, null);
+            cleared = t + 1;
+        } else {
+            item = null;
+        }
+        bottom = b + 1;
+        return item;
+    }
+
+    /**
+     * Removes and returns the item from the back of the deque, or returns
+     * null if the deque is empty. Any thread may call this method.
+     */
+    public Item removeLast() {
+        while (true) {
+            long t = top.get();
+            long b = bottom;
+            if (t >= b) {
+                return null;
+            }
+            AtomicReferenceArray<Item> array = items;
+            int index = index(array, t);
+            Item item = array.get(index);
+            if (top.compareAndSet(t, t + 1)) {
+                // Leave the slot to the owner, which clears it lazily.
+                return item;
+            }
+            // Another thread took the item, so try the next one.
+        }
+    }
+
+    /**
+     * Clears the slots of the items stolen since the last call, given the
+     * current top and bottom, so that the array does not hold on to them.
+     * The slots of positions below b - length have already been reused for
+     * the live items, so they are skipped. Each slot is cleared at most once
+     * per item, so the cost is constant amortized. Called by the owner only.
+     */
+    private void clearStolen(AtomicReferenceArray<Item> array, long t,
+        long b) {
+        long start = Math.max(cleared, b - array.length());
+        for (long i = start; i < t; i += 1) {
+            array.set(index(array, i), null);
+        }
+        cleared = Math.max(cleared, t);
+    }
+
+    private int index(AtomicReferenceArray<Item> array, long i) {
+        return (int) (i & (array.length() - 1));
+    }
+
+    /**
+     * Copies the items at [top, bottom) into an array twice as large and
+     * publishes it. Thieves still reading the old array see the same items.
+     */
+    private AtomicReferenceArray<Item> resize(
+        AtomicReferenceArray<Item> array, long t, long b) {
+        AtomicReferenceArray<Item> newArray =
+            new AtomicReferenceArray<>(array.length() * RESIZE_FACTOR);
+        for (long i = t; i < b; i += 1) {
+            newArray.set(index(newArray, i), array.get(index(array, i)));
+        }
+        items = newArray;
+        // The new array holds no stolen items.
+        cleared = t;
+        return newArray;
+    }
+
+    /**
+     * Stress test of a run where the owner adds the values to the deque,
+     * taking back every third item, while thieves steal from the back, and
+     * then the owner empties the deque. Returns the items taken by each
+     * thief in the order they were taken, with the owner's items last.
+     */
+    private static List<List<Integer>> run(Integer[] values, int numThieves)
+        throws InterruptedException {
+        WorkStealingDeque<Integer> deque = new WorkStealingDeque<>();
+        List<List<Integer>> taken = new ArrayList<>();
+        AtomicBoolean done = new AtomicBoolean(false);
+        Thread[] thieves = new Thread[numThieves];
+        for (int i = 0; i < numThieves; i += 1) {
+            List<Integer> items = new ArrayList<>();
+            taken.add(items);
+            thieves[i] = new Thread(() -> {
+                while (!done.get() || !deque.isEmpty()) {
+                    Integer item = deque.removeLast();
+                    if (item != null) {
+                        items.add(item);
+                    }
+                }
+            });
+            thieves[i].start();
+        }
+        List<Integer> owned = new ArrayList<>();
+        for (int i = 0; i < values.length; i += 1) {
+            deque.addFirst(values[i]);
+            if (i % 3 == 0) {
+                Integer item = deque.removeFirst();
+                if (item != null) {
+                    owned.add(item);
+                }
+            }
+        }
+        while (!deque.isEmpty()) {
+            Integer item = deque.removeFirst();
+            if (item != null) {
+                owned.add(item);
+            }
+        }
+        done.set(true);
+        for (Thread thief : thieves) {
+            thief.join();
+        }
+        taken.add(owned);
+        return taken;
+    }
+
+    /**
+     * Returns the number of values whose count in the taken items differs
+     * from their count in the added values, all of which are in [0, max).
+     */
+    private static int countErrors(Integer[] values,
+        List<List<Integer>> taken, int max) {
+        int[] counts = new int[max];
+        for (Integer value : values) {
+            counts[value] += 1;
+        }
+        for (List<Integer> items : taken) {
+            for (Integer item : items) {
+                counts[item] -= 1;
+            }
+        }
+        int errors = 0;
+        for (int count : counts) {
+            if (count != 0) {
+                errors += 1;
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Stress tests. First, distinct increasing values are added: every item
+     * must be taken exactly once, and since the deque holds its items in the
+     * order they were added and thieves take from the back, the items taken
+     * by each thief must be increasing, as in a sequential history. Second,
+     * the same few cached Integer objects are added over and over, so slots
+     * are reused for the same references, and no item may be lost.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int n = 1000000;
+        int numThieves = 4;
+        if (args.length >= 1) {
+            n = Integer.parseInt(args[0]);
+        }
+        if (args.length >= 2) {
+            numThieves = Integer.parseInt(args[1]);
+        }
+        Integer[] distinct = new Integer[n];
+        Integer[] cached = new Integer[n];
+        for (int i = 0; i < n; i += 1) {
+            distinct[i] = i;
+            cached[i] = i % 64;
+        }
+        List<List<Integer>> taken = run(distinct, numThieves);
+        int unordered = 0;
+        for (int i = 0; i < numThieves; i += 1) {
+            List<Integer> items = taken.get(i);
+            for (int j = 1; j < items.size(); j += 1) {
+                if (items.get(j - 1) >= items.get(j)) {
+                    unordered += 1;
+                }
+            }
+        }
+        System.out.println("Items: " + n + ", thieves: " + numThieves);
+        System.out.println("Items not taken exactly once: "
+            + countErrors(distinct, taken, n));
+        System.out.println("Steals out of order: " + unordered);
+        taken = run(cached, numThieves);
+        System.out.println("Cached values taken a wrong number of times: "
+            + countErrors(cached, taken, 64));
+    }
+}
@@ -7,7 +7,6 @@ import java.util.Map;
 
 import edu.princeton.cs.algs4.Digraph;
 import edu.princeton.cs.algs4.In;
-import edu.princeton.cs.algs4.StdIn;
 import edu.princeton.cs.algs4.StdOut;
 
 /**
@@ -105,12 +104,20 @@ public final class SAP {
         In in = new In(args[0]);
         Digraph G = new Digraph(in);
         SAP sap = new SAP(G);
-        while (!StdIn.isEmpty()) {
-            int v = StdIn.readInt();
-            int w = StdIn.readInt();
-            int length   = sap.length(v, w);
-            int ancestor = sap.ancestor(v, w);
-            StdOut.printf("length = %d, ancestor = %d\n", length, ancestor);
+        // Read the pairs of vertices from a file, or from standard input.
+        String pairs = null;
+        if (args.length >= 2) {
+            pairs = args[1];
+        }
+        try (TokenReader reader = TokenReader.open(pairs)) {
+            while (reader.hasNext()) {
+                int v = reader.nextInt();
+                int w = reader.nextInt();
+                int length   = sap.length(v, w);
+                int ancestor = sap.ancestor(v, w);
+                StdOut.printf("length = %d, ancestor = %d\n", length,
+                    ancestor);
+            }
         }
     }
 